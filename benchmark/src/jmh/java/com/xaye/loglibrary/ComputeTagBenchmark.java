@@ -0,0 +1,51 @@
+package com.xaye.loglibrary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解析调用位置 tag 的开销，legacyThreadStackTrace 是改造前 computeTag 的实现，作为对照
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ComputeTagBenchmark {
+
+    @Param({"1", "16"})
+    public int sampleRate;
+
+    @Setup
+    public void setup() {
+        XLogger.init(new LogConfiguration.Builder()
+                .setDebugEnabled(true)
+                .setStackTraceEnabled(true)
+                .setStackTraceSampleRate(sampleRate)
+                .build());
+    }
+
+    @Benchmark
+    public String computeTag() {
+        return XLogger.computeTag();
+    }
+
+    @Benchmark
+    public String legacyThreadStackTrace() {
+        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+        for (StackTraceElement element : stackTrace) {
+            if (!element.isNativeMethod() &&
+                    !Thread.class.getName().equals(element.getClassName()) &&
+                    !ComputeTagBenchmark.class.getName().equals(element.getClassName())) {
+                return element.getFileName() + ":" + element.getLineNumber();
+            }
+        }
+        return "XLogger";
+    }
+}
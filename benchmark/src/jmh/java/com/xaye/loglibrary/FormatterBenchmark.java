@@ -0,0 +1,102 @@
+package com.xaye.loglibrary;
+
+import com.xaye.loglibrary.format.JsonLogFormatter;
+import com.xaye.loglibrary.format.ThrowableLogFormatter;
+import com.xaye.loglibrary.format.XmlLogFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * 各格式化器的开销：Throwable、JSON、XML。
+ * items=5000 时 JSON 约 300KB，对应接口返回的大报文；
+ * jsonDomBaseline、xmlTransformerBaseline 为原先 org.json 解析再输出、每次新建 Transformer 的做法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FormatterBenchmark {
+
+    private final ThrowableLogFormatter throwableFormatter = new ThrowableLogFormatter();
+    private final JsonLogFormatter jsonFormatter = new JsonLogFormatter();
+    private final XmlLogFormatter xmlFormatter = new XmlLogFormatter();
+
+    @Param({"100", "5000"})
+    public int items;
+
+    private Throwable throwable;
+    private String json;
+    private String xml;
+
+    @Setup
+    public void setup() {
+        throwable = new IllegalStateException("benchmark");
+
+        StringBuilder jsonBuilder = new StringBuilder("{\"errorCode\":0,\"data\":[");
+        StringBuilder xmlBuilder = new StringBuilder("<response><data>");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                jsonBuilder.append(',');
+            }
+            jsonBuilder.append("{\"id\":").append(i)
+                    .append(",\"name\":\"item ").append(i)
+                    .append("\",\"visible\":true,\"tags\":[\"a\",\"b\"]}");
+            xmlBuilder.append("<item id=\"").append(i).append("\"><name>item ").append(i)
+                    .append("</name><visible>true</visible></item>");
+        }
+        json = jsonBuilder.append("]}").toString();
+        xml = xmlBuilder.append("</data></response>").toString();
+    }
+
+    @Benchmark
+    public String throwableFormatter() {
+        return throwableFormatter.formatMessage(throwable);
+    }
+
+    @Benchmark
+    public String buildTrMessage() {
+        return XLogger.buildTrMessage("benchmark message", throwable);
+    }
+
+    @Benchmark
+    public String jsonFormatter() {
+        return jsonFormatter.formatMessage(json);
+    }
+
+    @Benchmark
+    public String jsonDomBaseline() throws Exception {
+        return new JSONObject(json).toString(4);
+    }
+
+    @Benchmark
+    public String xmlFormatter() {
+        return xmlFormatter.formatMessage(xml);
+    }
+
+    @Benchmark
+    public String xmlTransformerBaseline() throws Exception {
+        StringWriter writer = new StringWriter();
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
+        transformer.transform(new StreamSource(new StringReader(xml)), new StreamResult(writer));
+        return writer.toString();
+    }
+}
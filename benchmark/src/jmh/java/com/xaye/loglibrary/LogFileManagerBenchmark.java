@@ -0,0 +1,82 @@
+package com.xaye.loglibrary;
+
+import com.xaye.loglibrary.utils.LogLevel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogFileManager.appendLog 写入临时目录的开销。
+ * LogFileManager 是单例，JMH 会为每组参数单独 fork 一个 JVM，因此每组参数都拿到按自己配置创建的实例。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogFileManagerBenchmark {
+
+    /**
+     * 取值见 {@link com.xaye.loglibrary.file.WriterType}
+     */
+    @Param({"0", "1", "2", "3", "4"})
+    public int writerType;
+
+    @Param({"false", "true"})
+    public boolean asyncEnabled;
+
+    /**
+     * 只影响 SIMPLE 和 BATCHING 写入器
+     */
+    @Param({"false", "true"})
+    public boolean garbageFreeEnabled;
+
+    private File logDirectory;
+    private LogFileManager logFileManager;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        logDirectory = Files.createTempDirectory("xlogger-bench").toFile();
+        logFileManager = LogFileManager.getInstance(new LogConfiguration.Builder()
+                .setLogDirectory(logDirectory.getAbsolutePath())
+                .setIsSaveLogEnabled(true)
+                .setWriterType(writerType)
+                .setAsyncEnabled(asyncEnabled)
+                .setGarbageFreeEnabled(garbageFreeEnabled)
+                .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        logFileManager.close();
+        File[] files = logDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        logDirectory.delete();
+    }
+
+    @Benchmark
+    public void appendLog() {
+        logFileManager.appendLog(LogLevel.INFO, "benchmark message written to the log file");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void appendLogContended() {
+        logFileManager.appendLog(LogLevel.INFO, "benchmark message written to the log file");
+    }
+}
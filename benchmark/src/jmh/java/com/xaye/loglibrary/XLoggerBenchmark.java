@@ -0,0 +1,61 @@
+package com.xaye.loglibrary;
+
+import com.xaye.loglibrary.utils.LogLevel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XLogger.log 的开销：被级别过滤的调用、通过过滤只输出到控制台（桩）的调用，以及多线程竞争。
+ * 被过滤的调用只比较一次缓存的级别阈值，应与 {@link #baseline()} 接近
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XLoggerBenchmark {
+
+    @Setup
+    public void setup() {
+        XLogger.init(new LogConfiguration.Builder()
+                .setDebugEnabled(true)
+                .setLogLevel(LogLevel.INFO)
+                .setStackTraceEnabled(false)
+                .build());
+    }
+
+    /**
+     * 空方法，作为被过滤调用的对照
+     */
+    @Benchmark
+    public void baseline() {
+    }
+
+    @Benchmark
+    public boolean isLoggableFiltered() {
+        return XLogger.isLoggable(LogLevel.DEBUG);
+    }
+
+    @Benchmark
+    public void filteredLevel() {
+        XLogger.d("Benchmark", "filtered message");
+    }
+
+    @Benchmark
+    public void unfilteredLevel() {
+        XLogger.i("Benchmark", "unfiltered message");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void unfilteredLevelContended() {
+        XLogger.i("Benchmark", "unfiltered message");
+    }
+}
@@ -0,0 +1,72 @@
+package com.xaye.loglibrary;
+
+import com.xaye.loglibrary.utils.zip.ZipUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压缩一个历史日志文件的耗时，覆盖常见的日志大小和压缩级别（-1 为默认级别 6）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ZipBenchmark {
+
+    @Param({"10240", "1048576", "8388608"})
+    public int fileSize;
+
+    @Param({"1", "-1", "9"})
+    public int level;
+
+    private File logFile;
+    private File zipFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "xlogger-zip-benchmark");
+        dir.mkdirs();
+        logFile = new File(dir, "2025-07-23.log");
+        zipFile = new File(dir, "2025_07_23_log.zip");
+
+        // 接近真实日志的内容：时间戳 + 变化的数字 + 重复的文本
+        Charset utf8 = Charset.forName("UTF-8");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(logFile))) {
+            long written = 0;
+            for (int i = 0; written < fileSize; i++) {
+                byte[] line = String.format("07-23 10:%02d:%02d.%03d request %d finished in %d ms status=ok%n",
+                        (i / 60000) % 60, (i / 1000) % 60, i % 1000, i, i % 317).getBytes(utf8);
+                int length = (int) Math.min(line.length, fileSize - written);
+                out.write(line, 0, length);
+                written += length;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        logFile.delete();
+        zipFile.delete();
+    }
+
+    @Benchmark
+    public boolean zipFile() {
+        return ZipUtils.zipFileSync(logFile, zipFile, level, null);
+    }
+}
@@ -0,0 +1,10 @@
+package android.os;
+
+/**
+ * 基准测试用的 android.os.Build 桩
+ */
+public class Build {
+    public static class VERSION {
+        public static final int SDK_INT = 21;
+    }
+}
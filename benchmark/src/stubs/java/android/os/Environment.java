@@ -0,0 +1,12 @@
+package android.os;
+
+import java.io.File;
+
+/**
+ * 基准测试用的 android.os.Environment 桩：外部存储指向系统临时目录
+ */
+public class Environment {
+    public static File getExternalStorageDirectory() {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+}
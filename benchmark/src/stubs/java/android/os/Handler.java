@@ -0,0 +1,14 @@
+package android.os;
+
+/**
+ * 基准测试用的 android.os.Handler 桩：没有消息循环，直接在当前线程执行
+ */
+public class Handler {
+    public Handler(Looper looper) {
+    }
+
+    public boolean post(Runnable r) {
+        r.run();
+        return true;
+    }
+}
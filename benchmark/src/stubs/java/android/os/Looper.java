@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * 基准测试用的 android.os.Looper 桩
+ */
+public final class Looper {
+    private static final Looper MAIN_LOOPER = new Looper();
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN_LOOPER;
+    }
+}
@@ -0,0 +1,144 @@
+package com.xaye.loglibrary;
+
+import com.xaye.loglibrary.file.BatchingWriter;
+import com.xaye.loglibrary.file.BinaryLogWriter;
+import com.xaye.loglibrary.file.GzipWriter;
+import com.xaye.loglibrary.file.SimpleWriter;
+import com.xaye.loglibrary.file.Writer;
+import com.xaye.loglibrary.file.WriterType;
+import com.xaye.loglibrary.utils.LogLevel;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 免垃圾模式下稳定写入时每条日志分配的字节数必须为 0。
+ * 用 ThreadMXBean 统计当前线程的分配量，先预热让 JIT 完成编译，再测量多轮取中位数：
+ * 多数轮次都不能超过 {@link #MAX_ROUND_BYTES}，JIT 重新编译等偶发分配只影响个别轮次，而每条日志哪怕只分配一个对象，
+ * 每轮也至少分配 {@link #MEASURED_CALLS} × 16 字节。
+ * LogFileManager 和 XLogger 都是全局单例，本类只使用一套配置。
+ */
+public class AllocationTest {
+    private static final int WARMUP_CALLS = 200_000;
+    private static final int MEASURED_CALLS = 10_000;
+    private static final int MEASURED_ROUNDS = 7;
+    private static final long MAX_ROUND_BYTES = 1024;
+
+    private static final String TAG = "Render";
+    private static final String MESSAGE = "frame rendered";
+
+    private static File logDirectory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        logDirectory = Files.createTempDirectory("xlogger-alloc").toFile();
+        XLogger.init(new LogConfiguration.Builder()
+                .setDebugEnabled(true)
+                .setLogLevel(LogLevel.DEBUG)
+                .setStackTraceEnabled(false)
+                .setIsSaveLogEnabled(true)
+                .setLogDirectory(logDirectory.getAbsolutePath())
+                .setWriterType(WriterType.BATCHING)
+                .setGarbageFreeEnabled(true)
+                .build());
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        LogFileManager.getInstance(null).close();
+        deleteDirectory(logDirectory);
+    }
+
+    @Test
+    public void filteredLogAllocatesNothing() {
+        assertAllocatesNothing("filtered", new Runnable() {
+            @Override
+            public void run() {
+                XLogger.v(TAG, MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void fileLogAllocatesNothing() {
+        assertAllocatesNothing("file", new Runnable() {
+            @Override
+            public void run() {
+                XLogger.d(TAG, MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void garbageFreeWritersAllocateNothing() {
+        assertWriterAllocatesNothing(new SimpleWriter(true), "simple.log");
+        assertWriterAllocatesNothing(new BatchingWriter(64, 16 * 1024, 1000L, true), "batching.log");
+        assertWriterAllocatesNothing(new BinaryLogWriter(), "binary.xlog");
+        assertWriterAllocatesNothing(new GzipWriter(64, 16 * 1024, 1000L, Deflater.BEST_SPEED), "gzip.log.gz");
+    }
+
+    private static void assertWriterAllocatesNothing(final Writer writer, String fileName) {
+        writer.open(new File(logDirectory, fileName));
+        try {
+            assertAllocatesNothing(fileName, new Runnable() {
+                @Override
+                public void run() {
+                    writer.appendRecord(1700000000000L, LogLevel.DEBUG, TAG, MESSAGE);
+                }
+            });
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void assertAllocatesNothing(String name, Runnable call) {
+        long[] rounds = measure(call);
+        long median = rounds[rounds.length / 2];
+        assertTrue(name + " allocated " + Arrays.toString(rounds) + " bytes per " + MEASURED_CALLS + " calls",
+                median <= MAX_ROUND_BYTES);
+    }
+
+    /**
+     * @return 每轮当前线程分配的字节数，从小到大排序，已扣除统计调用本身的分配
+     */
+    private static long[] measure(Runnable call) {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.run();
+        }
+
+        long[] rounds = new long[MEASURED_ROUNDS];
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long overheadStart = threadBean.getThreadAllocatedBytes(threadId);
+            long start = threadBean.getThreadAllocatedBytes(threadId);
+            long overhead = start - overheadStart;
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                call.run();
+            }
+            rounds[round] = Math.max(0L, threadBean.getThreadAllocatedBytes(threadId) - start - overhead);
+        }
+        Arrays.sort(rounds);
+        return rounds;
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
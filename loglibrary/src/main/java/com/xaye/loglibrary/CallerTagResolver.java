@@ -0,0 +1,45 @@
+package com.xaye.loglibrary;
+
+/**
+ * Resolves the "File.java:line" tag of the code that called XLogger.
+ *
+ * The stack walk is the most expensive step of a log call and its cost grows with stack depth.
+ * Neither Android nor Java 8 has a depth-bounded walk, so every resolved call pays for the full
+ * trace; the only levers are sampling (resolve 1 in N calls, the others use the fallback tag)
+ * and passing an explicit tag, which never gets here. A Throwable's trace is used rather than
+ * Thread.getStackTrace() only to avoid the extra Thread/VMStack frames.
+ */
+final class CallerTagResolver {
+    private static final String XLOGGER_CLASS = XLogger.class.getName();
+    private static final String RESOLVER_CLASS = CallerTagResolver.class.getName();
+
+    // Racy on purpose: sampling does not need an exact count
+    private static int sampleCounter;
+
+    private CallerTagResolver() {
+    }
+
+    /**
+     * @param sampleRate resolve the caller for 1 in sampleRate calls, 1 resolves every call
+     * @param fallback   tag used for calls that are not sampled or cannot be resolved
+     */
+    static String resolve(int sampleRate, String fallback) {
+        if (sampleRate > 1 && ++sampleCounter % sampleRate != 0) {
+            return fallback;
+        }
+        StackTraceElement caller = findCaller(new Throwable().getStackTrace());
+        return caller != null ? caller.getFileName() + ":" + caller.getLineNumber() : fallback;
+    }
+
+    private static StackTraceElement findCaller(StackTraceElement[] stackTrace) {
+        for (StackTraceElement element : stackTrace) {
+            String className = element.getClassName();
+            if (!element.isNativeMethod()
+                    && !XLOGGER_CLASS.equals(className)
+                    && !RESOLVER_CLASS.equals(className)) {
+                return element;
+            }
+        }
+        return null;
+    }
+}
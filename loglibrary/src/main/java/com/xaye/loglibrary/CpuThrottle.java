@@ -0,0 +1,33 @@
+package com.xaye.loglibrary;
+
+/**
+ * 按占空比限制后台任务的 CPU 占用：每次 {@link #pause()} 时，按上次恢复以来的工作时长休眠相应比例，
+ * 例如 percent = 25 时工作 10ms 就休眠 30ms。非线程安全，每个任务使用自己的实例。
+ */
+final class CpuThrottle {
+    private final int percent;
+    private long resumedAt = System.nanoTime();
+
+    /**
+     * @param percent 允许占用的 CPU 百分比（1-100），100 表示不限制
+     */
+    CpuThrottle(int percent) {
+        this.percent = Math.max(1, Math.min(100, percent));
+    }
+
+    void pause() {
+        if (percent >= 100) {
+            return;
+        }
+        long worked = System.nanoTime() - resumedAt;
+        long sleepNanos = worked * (100 - percent) / percent;
+        if (sleepNanos > 0) {
+            try {
+                Thread.sleep(sleepNanos / 1000000L, (int) (sleepNanos % 1000000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        resumedAt = System.nanoTime();
+    }
+}
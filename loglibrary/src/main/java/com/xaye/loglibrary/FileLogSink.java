@@ -0,0 +1,27 @@
+package com.xaye.loglibrary;
+
+import com.xaye.loglibrary.sink.BaseLogSink;
+
+/**
+ * 把日志写入 {@link LogFileManager} 管理的日志文件。
+ * 开启 isSaveLogEnabled 时 XLogger 会自动注册；是否异步写入由 LogConfiguration 的 asyncEnabled 决定。
+ */
+public class FileLogSink extends BaseLogSink {
+    private final LogFileManager logFileManager;
+
+    public FileLogSink(LogConfiguration config) {
+        this.logFileManager = LogFileManager.getInstance(config);
+    }
+
+    @Override
+    public void write(LogRecord record) {
+        logFileManager.appendLog(record);
+    }
+
+    /**
+     * 异步模式下因缓冲区写满而被丢弃的日志条数
+     */
+    public long getDroppedLogCount() {
+        return logFileManager.getDroppedLogCount();
+    }
+}
@@ -2,9 +2,12 @@ package com.xaye.loglibrary;
 
 import android.os.Environment;
 
+import com.xaye.loglibrary.file.OverflowPolicy;
+import com.xaye.loglibrary.file.WriterType;
 import com.xaye.loglibrary.utils.LogLevel;
 
 import java.io.File;
+import java.util.zip.Deflater;
 
 /**
  * Author xaye
@@ -18,10 +21,26 @@ public class LogConfiguration {
     private final boolean debugEnabled;
     private final int logLevel;
     private final boolean stackTraceEnabled;
+    private final int stackTraceSampleRate;
     private final int maxLogLength;
     private final boolean isSaveLogEnabled;
     private final long maxTotalLogSize;
+    private final long maxLogFileSize;
     private final long logSizeCheckInterval;
+    private final boolean asyncEnabled;
+    private final int asyncBufferSize;
+    private final int overflowPolicy;
+    private final int writerType;
+    private final int flushBatchSize;
+    private final int flushBytesThreshold;
+    private final long flushIntervalMillis;
+    private final int mmapChunkSize;
+    private final int formatMaxLength;
+    private final int formatMaxLines;
+    private final int compressionThreads;
+    private final int compressionCpuPercent;
+    private final int compressionLevel;
+    private final boolean garbageFreeEnabled;
 
     private LogConfiguration(Builder builder) {
         this.tag = builder.tag;
@@ -30,10 +49,26 @@ public class LogConfiguration {
         this.debugEnabled = builder.debugEnabled;
         this.logLevel = builder.logLevel;
         this.stackTraceEnabled = builder.stackTraceEnabled;
+        this.stackTraceSampleRate = builder.stackTraceSampleRate;
         this.maxLogLength = builder.maxLogLength;
         this.isSaveLogEnabled = builder.isSaveLogEnabled;
         this.maxTotalLogSize = builder.maxTotalLogSize;
+        this.maxLogFileSize = builder.maxLogFileSize;
         this.logSizeCheckInterval = builder.logSizeCheckInterval;
+        this.asyncEnabled = builder.asyncEnabled;
+        this.asyncBufferSize = builder.asyncBufferSize;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.writerType = builder.writerType;
+        this.flushBatchSize = builder.flushBatchSize;
+        this.flushBytesThreshold = builder.flushBytesThreshold;
+        this.flushIntervalMillis = builder.flushIntervalMillis;
+        this.mmapChunkSize = builder.mmapChunkSize;
+        this.formatMaxLength = builder.formatMaxLength;
+        this.formatMaxLines = builder.formatMaxLines;
+        this.compressionThreads = builder.compressionThreads;
+        this.compressionCpuPercent = builder.compressionCpuPercent;
+        this.compressionLevel = builder.compressionLevel;
+        this.garbageFreeEnabled = builder.garbageFreeEnabled;
     }
 
     public String getTag() {
@@ -60,6 +95,10 @@ public class LogConfiguration {
         return stackTraceEnabled;
     }
 
+    public int getStackTraceSampleRate() {
+        return stackTraceSampleRate;
+    }
+
     public int getMaxLogLength() {
         return maxLogLength;
     }
@@ -72,10 +111,74 @@ public class LogConfiguration {
         return maxTotalLogSize;
     }
 
+    public long getMaxLogFileSize() {
+        return maxLogFileSize;
+    }
+
+    /**
+     * @deprecated 日志总大小改为在写入时检查，此值不再使用
+     */
+    @Deprecated
     public long getLogSizeCheckInterval() {
         return logSizeCheckInterval;
     }
 
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    public int getAsyncBufferSize() {
+        return asyncBufferSize;
+    }
+
+    public int getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getWriterType() {
+        return writerType;
+    }
+
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    public int getFlushBytesThreshold() {
+        return flushBytesThreshold;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public int getMmapChunkSize() {
+        return mmapChunkSize;
+    }
+
+    public int getFormatMaxLength() {
+        return formatMaxLength;
+    }
+
+    public int getFormatMaxLines() {
+        return formatMaxLines;
+    }
+
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    public int getCompressionCpuPercent() {
+        return compressionCpuPercent;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public boolean isGarbageFreeEnabled() {
+        return garbageFreeEnabled;
+    }
+
     public static class Builder {
         private String tag = "XLogger";
         private String logDirectory = Environment.getExternalStorageDirectory().getAbsolutePath() + File.separator + tag + File.separator;
@@ -83,10 +186,26 @@ public class LogConfiguration {
         private boolean debugEnabled = false;
         private int logLevel = LogLevel.ALL;
         private boolean stackTraceEnabled = true;  // 堆栈跟踪日志的默认值,开启会消耗一些性能
-        private int maxLogLength = 3 * 1024;  // 默认值：单词打印最大长度，超过会被分段打印
+        private int stackTraceSampleRate = 1; // 堆栈跟踪采样：每N次日志解析一次调用位置，其余使用tag，默认每次都解析；每次解析都要遍历完整调用栈，采样和显式传入tag是降低开销的唯一手段
+        private int maxLogLength = 3 * 1024;  // 默认值：单次打印最大长度（UTF-8 字节数），超过会被分段打印
         private boolean isSaveLogEnabled = false;
         private long maxTotalLogSize = -1L;
-        private long logSizeCheckInterval = 5 * 60 * 1000L; // 默认5分钟检查一次 (单位：毫秒)
+        private long maxLogFileSize = 0L; // 单个日志文件的最大字节数，超过后切换到当天的下一个分段 yyyy-MM-dd.N.log，默认0只按日期切换
+        private long logSizeCheckInterval = 5 * 60 * 1000L; // 已废弃，日志总大小改为在写入时检查
+        private boolean asyncEnabled = false; // 是否异步写文件，开启后由后台写线程落盘，调用线程不再等待磁盘IO
+        private int asyncBufferSize = 1024; // 异步环形缓冲区容量（条数），会向上取整为2的幂
+        private int overflowPolicy = OverflowPolicy.BLOCK; // 缓冲区写满时的处理策略
+        private int writerType = WriterType.SIMPLE; // 日志文件写入器类型，默认每行立即刷盘
+        private int flushBatchSize = 64; // BATCHING/GZIP：累计多少条刷盘一次
+        private int flushBytesThreshold = 16 * 1024; // BATCHING/GZIP：累计多少字节刷盘一次；BINARY：内存缓冲区大小
+        private long flushIntervalMillis = 1000L; // BATCHING/BINARY/GZIP：最长多久刷盘一次 (单位：毫秒)
+        private int mmapChunkSize = 256 * 1024; // MMAP：每次映射（文件增长）的字节数
+        private int formatMaxLength = 0; // JSON/XML 格式化最多输出的 UTF-8 字节数，超出截断，0 表示不限制
+        private int formatMaxLines = 0; // JSON/XML 格式化最多输出的行数，超出截断，0 表示不限制
+        private int compressionThreads = 1; // 压缩历史日志的最大线程数
+        private int compressionCpuPercent = 100; // 每个压缩线程允许占用的 CPU 百分比，100 表示不限制
+        private int compressionLevel = Deflater.DEFAULT_COMPRESSION; // zip 和 GZIP 写入器的压缩级别，1 最快，9 压缩率最高
+        private boolean garbageFreeEnabled = false; // 免垃圾模式：SIMPLE/BATCHING 写入器直接编码进复用的字节缓冲区，稳定写入时不创建对象
 
         public Builder setTag(String tag) {
             this.tag = tag;
@@ -118,6 +237,11 @@ public class LogConfiguration {
             return this;
         }
 
+        public Builder setStackTraceSampleRate(int stackTraceSampleRate) {
+            this.stackTraceSampleRate = stackTraceSampleRate;
+            return this;
+        }
+
         public Builder setMaxLogLength(int maxLogLength) {  // 新增方法设置日志单词最大长度
             this.maxLogLength = maxLogLength;
             return this;
@@ -133,11 +257,108 @@ public class LogConfiguration {
             return this;
         }
 
+        public Builder setMaxLogFileSize(long maxLogFileSize) {
+            this.maxLogFileSize = maxLogFileSize;
+            return this;
+        }
+
+        /**
+         * @deprecated 日志总大小改为在写入时检查，超过 maxTotalLogSize 立即在后台清理，不再定时轮询
+         */
+        @Deprecated
         public Builder setLogSizeCheckInterval(long logSizeCheckInterval) {
             this.logSizeCheckInterval = logSizeCheckInterval;
             return this;
         }
 
+        public Builder setAsyncEnabled(boolean asyncEnabled) {
+            this.asyncEnabled = asyncEnabled;
+            return this;
+        }
+
+        public Builder setAsyncBufferSize(int asyncBufferSize) {
+            this.asyncBufferSize = asyncBufferSize;
+            return this;
+        }
+
+        /**
+         * @param overflowPolicy {@link OverflowPolicy#BLOCK}、{@link OverflowPolicy#DROP_OLDEST} 或 {@link OverflowPolicy#DROP_NEWEST}
+         */
+        public Builder setOverflowPolicy(int overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * @param writerType {@link WriterType#SIMPLE}、{@link WriterType#BATCHING}、{@link WriterType#MMAP}、
+         *                   {@link WriterType#BINARY} 或 {@link WriterType#GZIP}
+         */
+        public Builder setWriterType(int writerType) {
+            this.writerType = writerType;
+            return this;
+        }
+
+        /**
+         * @param flushBatchSize {@link WriterType#BATCHING} 和 {@link WriterType#GZIP} 累计多少条刷盘一次
+         */
+        public Builder setFlushBatchSize(int flushBatchSize) {
+            this.flushBatchSize = flushBatchSize;
+            return this;
+        }
+
+        /**
+         * @param flushBytesThreshold {@link WriterType#BATCHING} 和 {@link WriterType#GZIP} 累计多少字节刷盘一次；
+         *                            {@link WriterType#BINARY} 内存缓冲区的大小，写满后写入文件
+         */
+        public Builder setFlushBytesThreshold(int flushBytesThreshold) {
+            this.flushBytesThreshold = flushBytesThreshold;
+            return this;
+        }
+
+        /**
+         * @param flushIntervalMillis {@link WriterType#BATCHING}、{@link WriterType#BINARY} 和 {@link WriterType#GZIP}
+         *                            后台定时刷盘的间隔 (单位：毫秒)，0 表示不定时刷盘
+         */
+        public Builder setFlushIntervalMillis(long flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+            return this;
+        }
+
+        public Builder setMmapChunkSize(int mmapChunkSize) {
+            this.mmapChunkSize = mmapChunkSize;
+            return this;
+        }
+
+        public Builder setFormatMaxLength(int formatMaxLength) {
+            this.formatMaxLength = formatMaxLength;
+            return this;
+        }
+
+        public Builder setFormatMaxLines(int formatMaxLines) {
+            this.formatMaxLines = formatMaxLines;
+            return this;
+        }
+
+        public Builder setCompressionThreads(int compressionThreads) {
+            this.compressionThreads = compressionThreads;
+            return this;
+        }
+
+        public Builder setCompressionCpuPercent(int compressionCpuPercent) {
+            this.compressionCpuPercent = compressionCpuPercent;
+            return this;
+        }
+
+        public Builder setCompressionLevel(int compressionLevel) {
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        public Builder setGarbageFreeEnabled(boolean garbageFreeEnabled) {
+            this.garbageFreeEnabled = garbageFreeEnabled;
+            return this;
+        }
+
         public LogConfiguration build() {
             return new LogConfiguration(this);
         }
@@ -1,9 +1,18 @@
 package com.xaye.loglibrary;
 
-import android.annotation.SuppressLint;
 import android.util.Log;
 
+import com.xaye.loglibrary.file.BatchingWriter;
+import com.xaye.loglibrary.file.BinaryLogWriter;
+import com.xaye.loglibrary.file.GzipWriter;
+import com.xaye.loglibrary.file.MmapWriter;
 import com.xaye.loglibrary.file.SimpleWriter;
+import com.xaye.loglibrary.file.Writer;
+import com.xaye.loglibrary.file.WriterType;
+import com.xaye.loglibrary.sink.AsyncLogAppender;
+import com.xaye.loglibrary.utils.DayBoundary;
+import com.xaye.loglibrary.utils.LogLevel;
+import com.xaye.loglibrary.utils.LogLineBuffer;
 import com.xaye.loglibrary.utils.zip.ZipListener;
 import com.xaye.loglibrary.utils.zip.ZipUtils;
 
@@ -11,16 +20,26 @@ import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 按日期创建和切换日志文件，每天生成一个新日志文件；
  * 定时清理过期日志（按保留天数）；
- * 控制日志总大小，超出限制时删除旧文件，支持处理当前正在写入的日志文件；
+ * 控制日志总大小，写入量超出限制时在后台删除最旧的文件，不会关闭或删除正在写入的文件；
  * 低优先级后台线程执行清理任务，避免影响主线程。
  * 
  * 新增功能：
@@ -28,19 +47,75 @@ import java.util.concurrent.TimeUnit;
  * - 压缩成功后删除原始日志文件，只保留压缩文件
  * - 使用新的命名格式：2025_07_23_log.zip
  * - 压缩过程不影响当前日志写入
+ * - 可选异步写入：调用线程只入队，由 LogWriterThread 统一落盘
+ * - 可选批量刷盘：按条数、字节数或时间间隔刷盘，ERROR 日志立即刷盘
+ * - 可选内存映射写入：进程被杀不丢日志，下次打开时修复文件末尾
+ * - 可选二进制格式：写入 .xlog 文件，用 XlogDecoder 还原为文本
+ * - 可选边写边压缩：写入 .log.gz 文件，历史日志不再需要压缩
+ * - 可选按大小分段：当天文件超过 maxLogFileSize 时切换到 yyyy-MM-dd.N.log，下一个分段在后台预先打开，
+ *   旧分段也在该线程关闭，压缩、按日期清理和按大小清理都以分段为单位
+ *
+ * 并发模型：
+ * - 同步模式下每个线程先写入自己的 {@link LogStagingBuffer}，不在全局锁上排队；
+ *   抢到持有权（ownerLock.tryLock）的线程把所有暂存区按时间合并后写入文件，抢不到的线程直接返回
+ * - 异步模式下 LogWriterThread 是唯一写入者
+ * - 切换日期和分段、刷盘、关闭等对 currentWriter 的修改都只在持有 ownerLock 时进行
  */
 final class LogFileManager {
     private static final String TAG = "LogFileManager";
+    private static final int MAX_STAGED_PER_THREAD = 4096; // 单个线程暂存的日志超过此值时，由该线程等待持有权并亲自写入
+    private static final long MIN_SEGMENT_CHECK_CHARS = 4 * 1024; // 两次检查分段大小之间至少写入的字符数
     private static LogFileManager instance;
-    private SimpleWriter currentWriter;
-    private String currentLogDate;
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+    private Writer currentWriter;
+    private volatile String currentLogDate;
+    private volatile String currentLogName; // 正在写入的分段文件名
+    private int currentSegment; // 当天的分段序号，只由持有者访问
+    private long segmentCharsSinceCheck; // 上次检查分段大小以来写入的字符数，只由持有者访问
+    private long segmentCheckChars = Long.MAX_VALUE; // 写入字符数达到此值时检查分段大小，只由持有者访问
+    // 后台预先打开下一个分段，以下两个字段由 segmentLock 保护
+    private final Object segmentLock = new Object();
+    private String requestedSegmentName; // 等待后台打开的分段，持有者自己打开或取消后置为 null
+    private Writer preparedWriter;
+    private final DayBoundary dayBoundary = new DayBoundary();
     private final LogConfiguration config;
-    private final ScheduledExecutorService sizeCleanupScheduler;
-    private final ScheduledExecutorService compressionScheduler;
+    private final String logFileExtension; // 当天日志文件的扩展名，二进制格式为 .xlog
+    private final ScheduledExecutorService sizeCleanupScheduler; // 按大小清理、定时刷盘以及分段的打开和关闭，不等待压缩
+    private final ScheduledExecutorService compressionScheduler; // 扫描待压缩的历史日志并分派给压缩线程池
+    private final ThreadPoolExecutor compressionPool;
+    private final Semaphore compressionPermits; // 执行中和排队中的压缩任务数上限，满了扫描线程等待
+    private final Set<String> compressingFiles = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final LogSegmentIndex segmentIndex; // 日志目录的内存索引，清理和压缩只查索引不扫描目录
+    private final AtomicLong quotaCharsWritten = new AtomicLong(); // 上次配额检查以来写入的字符数
+    private volatile long quotaCharsHeadroom = Long.MAX_VALUE; // 写入字符数达到此值时触发配额检查
+    private final AtomicBoolean quotaCheckScheduled = new AtomicBoolean();
+    // 以下只在配额检查线程中访问，用于校准字符数与文件字节数的比例
+    private String activeName;
+    private long activeLength;
+    private String lastActiveName;
+    private long lastActiveLength;
+    private AsyncLogAppender asyncAppender;
+
+    // 写文件的持有权，currentWriter 只能由持有者访问
+    private final ReentrantLock ownerLock = new ReentrantLock();
+    // 所有暂存区中尚未写入文件的日志条数
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    // 写时复制的数组快照，遍历时不创建迭代器
+    private volatile LogStagingBuffer[] stagingBuffers = new LogStagingBuffer[0];
+    private final Object stagingLock = new Object();
+    private final ThreadLocal<LogStagingBuffer> localStagingBuffer = new ThreadLocal<LogStagingBuffer>() {
+        @Override
+        protected LogStagingBuffer initialValue() {
+            LogStagingBuffer buffer = new LogStagingBuffer(Thread.currentThread());
+            addStagingBuffer(buffer);
+            return buffer;
+        }
+    };
 
     private LogFileManager(LogConfiguration config) {
         this.config = config;
+        this.logFileExtension = getLogFileExtension(config.getWriterType());
+        this.segmentIndex = new LogSegmentIndex(new File(config.getLogDirectory()));
+        this.segmentIndex.rebuild();
         
         // 创建大小清理的后台调度器
         this.sizeCleanupScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
@@ -55,9 +130,37 @@ final class LogFileManager {
             t.setPriority(Thread.MIN_PRIORITY);
             return t;
         });
+
+        // 压缩线程池：线程数有上限，空闲后自动退出
+        int compressionThreads = Math.max(1, config.getCompressionThreads());
+        AtomicInteger compressionThreadId = new AtomicInteger();
+        this.compressionPool = new ThreadPoolExecutor(
+                compressionThreads,
+                compressionThreads,
+                30L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "LogCompressionWorker-" + compressionThreadId.incrementAndGet());
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }
+        );
+        this.compressionPool.allowCoreThreadTimeOut(true);
+        this.compressionPermits = new Semaphore(compressionThreads * 2);
         
-        openNewLogForToday();
-        startBackgroundSizeCleanup();
+        openNewLogForToday(System.currentTimeMillis());
+        startBackgroundFlush();
+
+        // 异步模式下由唯一的写线程负责落盘
+        if (config.isAsyncEnabled()) {
+            this.asyncAppender = new AsyncLogAppender(
+                    "LogWriterThread",
+                    config.getAsyncBufferSize(),
+                    config.getOverflowPolicy(),
+                    this::writeLogAsOwner
+            );
+        }
     }
 
     public static synchronized LogFileManager getInstance(LogConfiguration config) {
@@ -68,74 +171,317 @@ final class LogFileManager {
     }
 
     /**
-     * 启动大小清理的后台任务
+     * @return 已创建的实例，还没有写过文件时返回 null；不会因此创建目录、打开文件或启动后台线程
      */
-    private void startBackgroundSizeCleanup() {
-        if (config.getMaxTotalLogSize() > 0) {
-            long interval = config.getLogSizeCheckInterval();
-            sizeCleanupScheduler.scheduleWithFixedDelay(
-                    this::cleanupOldLogsBySize,
-                    interval,
-                    interval,
-                    TimeUnit.MILLISECONDS
-            );
+    static synchronized LogFileManager peekInstance() {
+        return instance;
+    }
+
+    /**
+     * 写入量达到剩余配额或切换了日志文件时，在后台线程检查总大小，同一时刻最多排队一次
+     */
+    private void scheduleQuotaCheck() {
+        if (config.getMaxTotalLogSize() > 0 && quotaCheckScheduled.compareAndSet(false, true)) {
+            try {
+                sizeCleanupScheduler.execute(this::cleanupOldLogsBySize);
+            } catch (RejectedExecutionException e) {
+                // 已关闭
+            }
         }
     }
 
     /**
-     * 打开今天的日志文件
+     * 批量刷盘、二进制格式和压缩写入时，定时把长时间没有新日志的缓冲刷到磁盘
      */
-    private void openNewLogForToday() {
-        String today = DATE_FORMAT.format(new Date());
-        if (!today.equals(currentLogDate)) {
-            if (currentWriter != null) {
-                currentWriter.close();
+    private void startBackgroundFlush() {
+        int writerType = config.getWriterType();
+        boolean buffered = writerType == WriterType.BATCHING
+                || writerType == WriterType.BINARY
+                || writerType == WriterType.GZIP;
+        if (buffered && config.getFlushIntervalMillis() > 0) {
+            long interval = config.getFlushIntervalMillis();
+            sizeCleanupScheduler.scheduleWithFixedDelay(() -> runAsOwner(() -> {
+                if (currentWriter != null) {
+                    currentWriter.flushIfDue();
+                }
+            }), interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static String getLogFileExtension(int writerType) {
+        switch (writerType) {
+            case WriterType.BINARY:
+                return BinaryLogWriter.FILE_EXTENSION;
+            case WriterType.GZIP:
+                return GzipWriter.FILE_EXTENSION;
+            default:
+                return ".log";
+        }
+    }
+
+    /**
+     * 按配置创建日志写入器
+     */
+    private Writer createWriter() {
+        switch (config.getWriterType()) {
+            case WriterType.BATCHING:
+                return new BatchingWriter(
+                        config.getFlushBatchSize(),
+                        config.getFlushBytesThreshold(),
+                        config.getFlushIntervalMillis(),
+                        config.isGarbageFreeEnabled()
+                );
+            case WriterType.MMAP:
+                return new MmapWriter(config.getMmapChunkSize());
+            case WriterType.BINARY:
+                return new BinaryLogWriter(config.getFlushBytesThreshold());
+            case WriterType.GZIP:
+                return new GzipWriter(
+                        config.getFlushBatchSize(),
+                        config.getFlushBytesThreshold(),
+                        config.getFlushIntervalMillis(),
+                        config.getCompressionLevel()
+                );
+            case WriterType.SIMPLE:
+            default:
+                return new SimpleWriter(config.isGarbageFreeEnabled());
+        }
+    }
+
+    /**
+     * 打开当前日期的日志文件，日期未变化时只做一次边界比较
+     *
+     * @param nowMillis 写入时的时钟，不是日志自身的时间
+     */
+    private void openNewLogForToday(long nowMillis) {
+        if (!dayBoundary.isCrossed(nowMillis)) {
+            return;
+        }
+        if (dayBoundary.refresh(nowMillis) || currentWriter == null) {
+            currentLogDate = dayBoundary.getDate();
+            // 进程重启后接着写当天最后一个分段，它已被压缩时从下一个序号开始
+            LogSegmentIndex.Segment latest = segmentIndex.latest(currentLogDate);
+            if (latest == null) {
+                currentSegment = 0;
+            } else if (latest.name.equals(getSegmentFileName(currentLogDate, latest.sequence))) {
+                currentSegment = latest.sequence;
+            } else {
+                currentSegment = latest.sequence + 1;
             }
-            currentLogDate = today;
+            // 为前一天预先打开的分段不再使用
+            discardPreparedWriter();
             new File(config.getLogDirectory()).mkdirs();
-            File logFile = new File(config.getLogDirectory(), currentLogDate + ".log");
-            currentWriter = new SimpleWriter();
-            currentWriter.open(logFile);
+            switchWriter(openSegment(getSegmentFileName(currentLogDate, currentSegment)));
             
             // 清理过期文件
             cleanupOldLogsByDate();
-            
+        }
+    }
+
+    /**
+     * 当前分段写满或单独超过总大小限制时切换到下一个分段，优先使用后台预先打开的写入器
+     */
+    private void rollOverSegment() {
+        currentSegment++;
+        String fileName = getSegmentFileName(currentLogDate, currentSegment);
+        // 后台还没开始打开时取消请求，由持有者自己打开；正在打开时等它完成，同一个文件不会被打开两次
+        Writer next = takePreparedWriter();
+        if (next != null && !fileName.equals(next.getOpenedFileName())) {
+            discardWriter(next);
+            next = null;
+        }
+        switchWriter(next != null ? next : openSegment(fileName));
+    }
+
+    /**
+     * 检查当前分段的大小，只能由持有者调用；
+     * 一个字符最多编码为 3 个字节，下次检查之前最多再写入剩余空间的 1/3 个字符，越接近上限检查越频繁
+     */
+    private void checkSegmentSize() {
+        segmentCharsSinceCheck = 0;
+        long remaining = config.getMaxLogFileSize() - currentWriter.length();
+        if (remaining <= 0) {
+            rollOverSegment();
+            return;
+        }
+        segmentCheckChars = Math.max(MIN_SEGMENT_CHECK_CHARS, remaining / 3);
+    }
+
+    /**
+     * 在后台打开下一个分段，切换时不在写入线程上创建文件
+     */
+    private void requestNextSegment() {
+        String fileName = getSegmentFileName(currentLogDate, currentSegment + 1);
+        synchronized (segmentLock) {
+            requestedSegmentName = fileName;
+        }
+        try {
+            sizeCleanupScheduler.execute(() -> prepareSegment(fileName));
+        } catch (RejectedExecutionException e) {
+            // 已关闭
+        }
+    }
+
+    private void prepareSegment(String fileName) {
+        synchronized (segmentLock) {
+            if (fileName.equals(requestedSegmentName)) {
+                requestedSegmentName = null;
+                preparedWriter = openSegment(fileName);
+            }
+        }
+    }
+
+    /**
+     * 取走预先打开的分段并取消尚未执行的请求
+     */
+    private Writer takePreparedWriter() {
+        synchronized (segmentLock) {
+            Writer writer = preparedWriter;
+            preparedWriter = null;
+            requestedSegmentName = null;
+            return writer;
+        }
+    }
+
+    private Writer openSegment(String fileName) {
+        Writer writer = createWriter();
+        writer.open(new File(config.getLogDirectory(), fileName));
+        return writer;
+    }
+
+    /**
+     * 切换到新的分段，只能由持有者调用；旧分段在打开分段的后台线程上关闭，关闭后再交给压缩线程，
+     * 不会排在等待压缩线程池的扫描任务后面
+     */
+    private void switchWriter(Writer next) {
+        Writer previous = currentWriter;
+        currentWriter = next;
+        currentLogName = next.getOpenedFileName();
+        segmentIndex.put(currentLogName, next.length());
+        segmentCharsSinceCheck = 0;
+        if (config.getMaxLogFileSize() > 0) {
+            segmentCheckChars = Math.max(MIN_SEGMENT_CHECK_CHARS, config.getMaxLogFileSize() / 3);
+            requestNextSegment();
+        } else {
+            segmentCheckChars = Long.MAX_VALUE;
+        }
+        if (previous != null && previous.getOpenedFileName() != null) {
+            // 关闭完成前不能压缩，缓冲中可能还有没写入文件的日志
+            compressingFiles.add(previous.getOpenedFileName());
+        }
+
+        Runnable closeAndCompress = () -> {
+            if (previous != null) {
+                closeSegment(previous);
+            }
             // 压缩历史日志文件（异步执行，不阻塞日志写入）
+            scheduleCompression();
+        };
+        try {
+            sizeCleanupScheduler.execute(closeAndCompress);
+        } catch (RejectedExecutionException e) {
+            // 已关闭，直接在当前线程关闭旧分段
+            if (previous != null) {
+                closeSegment(previous);
+            }
+        }
+        // 按新的分段重新校准配额；上一个分段关闭后才能删除，关闭后会再检查一次
+        scheduleQuotaCheck();
+    }
+
+    private void scheduleCompression() {
+        try {
             compressionScheduler.execute(this::compressHistoryLogFiles);
+        } catch (RejectedExecutionException e) {
+            // 已关闭
+        }
+    }
+
+    private void closeSegment(Writer writer) {
+        File file = writer.getOpenedFile();
+        writer.close();
+        if (file != null) {
+            if (file.exists()) {
+                segmentIndex.put(file.getName(), file.length());
+            }
+            compressingFiles.remove(file.getName());
+        }
+        scheduleQuotaCheck();
+    }
+
+    private void discardPreparedWriter() {
+        Writer writer = takePreparedWriter();
+        if (writer != null) {
+            discardWriter(writer);
         }
     }
 
+    /**
+     * 关闭并删除预先打开但没有写入过的分段
+     */
+    private static void discardWriter(Writer writer) {
+        File file = writer.getOpenedFile();
+        writer.close();
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * 分段文件名：第一个分段为 yyyy-MM-dd.log，之后为 yyyy-MM-dd.N.log
+     */
+    private String getSegmentFileName(String date, int sequence) {
+        return sequence > 0 ? date + "." + sequence + logFileExtension : date + logFileExtension;
+    }
+
     /**
      * 压缩历史日志文件
-     * 在每天第一次写入日志时执行，确保历史日志被压缩
+     * 在每天第一次写入日志时执行，确保历史日志被压缩；
+     * 每个文件作为一个任务交给压缩线程池，线程池排满时在此等待，避免积压的历史日志一次全部入队
      */
     private void compressHistoryLogFiles() {
         try {
             File logDir = new File(config.getLogDirectory());
-            File[] files = logDir.listFiles(file -> 
-                file.isFile() && 
-                file.getName().endsWith(".log") && 
-                !file.getName().equals(currentLogDate + ".log") // 排除当天的日志文件
-            );
-            
-            if (files == null || files.length == 0) {
-                return;
-            }
-            
-            for (File logFile : files) {
-                String fileName = logFile.getName();
-                String dateStr = fileName.replace(".log", "");
-                
-                // 检查是否符合日期格式 yyyy-MM-dd
-                if (dateStr.matches("\\d{4}-\\d{2}-\\d{2}")) {
-                    // 生成新的压缩文件名称格式：2025_07_23_log.zip
-                    String zipFileName = dateStr.replace("-", "_") + "_log.zip";
-                    File zipFile = new File(logDir, zipFileName);
-                    
-                    // 检查压缩文件是否已存在
-                    if (!zipFile.exists()) {
-                        compressSingleLogFile(logFile, zipFile);
-                    }
+            // 排除正在写入的分段；.log.gz 在索引中已视为压缩文件
+            for (LogSegmentIndex.Segment segment : segmentIndex.uncompressed(currentLogName)) {
+                String fileName = segment.name;
+                File logFile = new File(logDir, fileName);
+                boolean isBinary = fileName.endsWith(BinaryLogWriter.FILE_EXTENSION);
+                // 生成新的压缩文件名称格式：2025_07_23_log.zip，二进制格式为 2025_07_23_xlog.zip，分段 N 为 2025_07_23_N_log.zip
+                String zipFileName = segment.date.replace("-", "_")
+                        + (segment.sequence > 0 ? "_" + segment.sequence : "")
+                        + (isBinary ? "_xlog.zip" : "_log.zip");
+                File zipFile = new File(logDir, zipFileName);
+
+                // 检查是否已在压缩中，或压缩文件已存在；先占位再检查，避免和刚结束的压缩任务重复
+                if (!compressingFiles.add(fileName)) {
+                    continue;
+                }
+                if (segmentIndex.contains(zipFileName) || !segmentIndex.contains(fileName)) {
+                    compressingFiles.remove(fileName);
+                    continue;
+                }
+                compressionPermits.acquire();
+                try {
+                    compressionPool.execute(() -> {
+                        try {
+                            if (config.getWriterType() == WriterType.MMAP) {
+                                // 进程被杀时映射区末尾可能残留未写入的 0 字节
+                                MmapWriter.trimUnwrittenTail(logFile);
+                            }
+                            compressSingleLogFile(logFile, zipFile);
+                        } finally {
+                            compressingFiles.remove(fileName);
+                            compressionPermits.release();
+                            // 压缩期间暂停了对该文件的清理，移出占位后再检查，否则检查可能仍跳过它
+                            scheduleQuotaCheck();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // 已关闭
+                    compressingFiles.remove(fileName);
+                    compressionPermits.release();
+                    return;
                 }
             }
         } catch (Exception e) {
@@ -144,10 +490,11 @@ final class LogFileManager {
     }
 
     /**
-     * 压缩单个日志文件
+     * 在当前压缩线程上压缩单个日志文件，回调不再切换到主线程
      */
     private void compressSingleLogFile(File logFile, File zipFile) {
-        ZipUtils.zipFile(logFile, zipFile, new ZipListener() {
+        CpuThrottle throttle = new CpuThrottle(config.getCompressionCpuPercent());
+        ZipUtils.zipFileSync(logFile, zipFile, config.getCompressionLevel(), new ZipListener() {
             @Override
             public void onStart() {
                 Log.d(TAG, "开始压缩日志文件：" + logFile.getName());
@@ -156,23 +503,30 @@ final class LogFileManager {
             @Override
             public void onProgress(String fileName, int progress, int totalItems, int currentItemIndex, long bytesRead, long totalBytes) {
                 Log.d(TAG, "正在压缩日志文件：" + logFile.getName() + "，进度：" + progress + "%");
+                // 每压缩一块按 CPU 配额休眠
+                throttle.pause();
             }
 
             @Override
             public void onSuccess(File resultZipFile) {
                 Log.d(TAG, "压缩日志文件成功：" + logFile.getName() + " -> " + resultZipFile.getName());
+                segmentIndex.put(resultZipFile.getName(), resultZipFile.length());
                 // 压缩成功，删除原始日志文件
                 if (logFile.exists()) {
                     if (logFile.delete()) {
                         Log.d(TAG, "已删除原始日志文件：" + logFile.getName());
                     }
                 }
+                if (!logFile.exists()) {
+                    segmentIndex.remove(logFile.getName());
+                }
             }
 
             @Override
             public void onFailure(Exception e, String message) {
                 Log.e(TAG, "压缩日志文件失败：" + logFile.getName(), e);
-                // 压缩失败，保留原始文件
+                // 压缩失败，保留原始文件，删除不完整的压缩文件
+                zipFile.delete();
             }
         });
     }
@@ -183,107 +537,287 @@ final class LogFileManager {
      */
     private void cleanupOldLogsByDate() {
         File logDir = new File(config.getLogDirectory());
-        File[] files = logDir.listFiles();
-
-        if (files != null) {
-            String limitDate = new SimpleDateFormat("yyyy-MM-dd").format(getDateDaysAgo(config.getRetentionDays()));
-            for (File file : files) {
-                String fileName = file.getName();
-                String fileDate = null;
-                
-                if (fileName.endsWith(".log")) {
-                    fileDate = fileName.replace(".log", "");
-                } else if (fileName.endsWith(".zip")) {
-                    // 处理新的命名格式：2025_07_23_log.zip
-                    if (fileName.matches("\\d{4}_\\d{2}_\\d{2}_log\\.zip")) {
-                        String dateStr = fileName.replace("_log.zip", "");
-                        fileDate = dateStr.replace("_", "-"); // 转换为 yyyy-MM-dd 格式用于比较
-                    }
-                    // 兼容旧格式
-                    else if (fileName.matches("\\d{4}-\\d{2}-\\d{2}\\.zip")) {
-                        fileDate = fileName.replace(".zip", "");
-                    } else if (fileName.matches("\\d{4}-\\d{2}-\\d{2}_\\d{4}\\.zip")) {
-                        fileDate = fileName.substring(0, 10); // 提取日期部分
-                    }
-                }
-                
-                if (fileDate != null && fileDate.compareTo(limitDate) <= 0) {
-                    file.delete();
-                }
+        String limitDate = new SimpleDateFormat("yyyy-MM-dd").format(getDateDaysAgo(config.getRetentionDays()));
+        for (LogSegmentIndex.Segment segment : segmentIndex.onOrBefore(limitDate)) {
+            File file = new File(logDir, segment.name);
+            if (file.delete() || !file.exists()) {
+                segmentIndex.remove(segment.name);
             }
         }
     }
 
     /**
-     * 清理旧日志直到总大小低于限制
-     * 同时处理 .log 和 .zip 文件
+     * 清理旧日志直到总大小低于限制，在后台线程执行，不影响写入
+     * 同时处理 .log 和 .zip 文件；正在写入的文件不会被关闭或删除。
+     * 预先打开的下一个分段还没有写入日志（MMAP 只是预先映射的空间），不在索引中，切换过去后才计入总大小
      */
-    @SuppressLint("NewApi")
     private void cleanupOldLogsBySize() {
+        quotaCheckScheduled.set(false);
         long maxSize = config.getMaxTotalLogSize();
         if (maxSize <= 0) return;
 
+        // 先取走计数再读文件大小，期间写入的部分会被重复计入，只会让下次检查提前
+        long charsWritten = quotaCharsWritten.getAndSet(0);
         File logDir = new File(config.getLogDirectory());
-        File[] files = logDir.listFiles(pathname -> pathname.isFile() && 
-            (pathname.getName().endsWith(".log") || 
-             pathname.getName().endsWith(".zip")));
+        // 按写入器统计已写入的字节数，MMAP 的文件大小是预先映射的大小；写入器只能由持有者访问
+        runAsOwner(() -> {
+            activeName = currentLogName;
+            activeLength = currentWriter != null ? currentWriter.length() : 0L;
+        });
+        // 切换文件后，这段时间的字符数还包含写进上一个文件的部分，不能用来折算比例，按字节数保守估计
+        long bytesWritten = activeName.equals(lastActiveName) ? activeLength - lastActiveLength : 0L;
+        lastActiveName = activeName;
+        lastActiveLength = activeLength;
+        // 其它段的大小在索引中是准确的，只有正在写入的文件在增长
+        segmentIndex.put(activeName, activeLength);
 
-        if (files == null || files.length == 0) return;
+        while (segmentIndex.getTotalSize() > maxSize) {
+            // 正在关闭或压缩的分段不删除，压缩完成后会再检查一次
+            LogSegmentIndex.Segment oldest = segmentIndex.oldestExcept(activeName, compressingFiles);
+            if (oldest == null) {
+                quotaCharsHeadroom = Long.MAX_VALUE;
+                if (compressingFiles.isEmpty()) {
+                    // 只剩正在写入的文件也超过限制：切换到下一个分段，切换后的检查会删除它，
+                    // 未开启按大小分段时当天文件也不会无限增长
+                    Log.w(TAG, "正在写入的日志超过总大小限制，切换到下一个分段");
+                    String overQuotaName = activeName;
+                    runAsOwner(() -> {
+                        // 持有者可能已经因日期或分段大小切换过
+                        if (overQuotaName.equals(currentLogName)) {
+                            rollOverSegment();
+                        }
+                    });
+                } else {
+                    // 其余文件正在关闭或压缩，移出占位时会再检查一次
+                    Log.w(TAG, "日志总大小超过限制，暂时没有可以删除的文件");
+                }
+                return;
+            }
+            // 删除失败也移出索引，避免反复尝试同一个文件
+            new File(logDir, oldest.name).delete();
+            segmentIndex.remove(oldest.name);
+        }
 
-        long totalSize = 0;
-        for (File file : files) {
-            totalSize += file.length();
+        // 把剩余的字节配额换算成字符数，多字节字符和压缩格式都按实际写入的比例折算
+        long headroomBytes = maxSize - segmentIndex.getTotalSize();
+        if (charsWritten > 0 && bytesWritten > 0) {
+            quotaCharsHeadroom = Math.max(1L, (long) ((double) headroomBytes * charsWritten / bytesWritten));
+        } else {
+            quotaCharsHeadroom = Math.max(1L, headroomBytes);
         }
+    }
 
-        if (totalSize <= maxSize) return;
+    private Date getDateDaysAgo(int days) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_YEAR, -days);
+        return calendar.getTime();
+    }
 
-        Arrays.sort(files, Comparator.comparing(File::getName));
+    public void appendLog(String log) {
+        appendLog(LogLevel.INFO, log);
+    }
 
-        for (File file : files) {
-            if (totalSize <= maxSize) break;
+    public void appendLog(int level, String log) {
+        appendLog(System.currentTimeMillis(), level, null, log);
+    }
 
-            long fileSize = file.length();
-            boolean isCurrentLogFile = file.getName().equals(currentLogDate + ".log");
-            
-            if (isCurrentLogFile && currentWriter != null) {
-                currentWriter.close();
+    /**
+     * @param timeMillis 日志产生的时间，异步分发时不等于写入时间
+     */
+    public void appendLog(long timeMillis, int level, String tag, String log) {
+        if (asyncAppender != null) {
+            LogRecord record = LogRecord.obtain(timeMillis, level, tag, log, null);
+            try {
+                asyncAppender.append(record);
+            } finally {
+                record.recycle();
             }
+            return;
+        }
+        stageLog(timeMillis, level, tag, log);
+    }
+
+    /**
+     * 写入一条日志记录，返回前已复制需要的字段，record 可以随即回收
+     */
+    public void appendLog(LogRecord record) {
+        if (asyncAppender != null) {
+            asyncAppender.append(record);
+            return;
+        }
+        stageLog(record.getTimeMillis(), record.getLevel(), record.getTag(), record.getMessage());
+    }
+
+    private void stageLog(long timeMillis, int level, String tag, String log) {
+        int staged = localStagingBuffer.get().add(timeMillis, level, tag, log);
+        pendingCount.incrementAndGet();
+        if (staged >= MAX_STAGED_PER_THREAD) {
+            // 持有者跟不上时，让产生日志最多的线程等待并亲自写入，形成反压
+            runAsOwner(null);
+        } else {
+            drainIfIdle();
+        }
+    }
 
-            if (file.delete()) {
-                totalSize -= fileSize;
+    /**
+     * 没有其他线程持有写入权时，由当前线程写入所有暂存的日志；否则交给当前持有者
+     */
+    private void drainIfIdle() {
+        while (pendingCount.get() > 0 && ownerLock.tryLock()) {
+            try {
+                drainStagingBuffers();
+            } finally {
+                ownerLock.unlock();
             }
+        }
+    }
 
-            if (isCurrentLogFile) {
-                File logFile = new File(logDir, currentLogDate + ".log");
-                currentWriter.open(logFile);
+    /**
+     * 取得写入权后执行任务，执行前先写完已暂存的日志
+     */
+    private void runAsOwner(Runnable task) {
+        ownerLock.lock();
+        try {
+            drainStagingBuffers();
+            if (task != null) {
+                task.run();
             }
+        } finally {
+            ownerLock.unlock();
         }
+        // 持有期间其他线程暂存的日志依赖持有者写入
+        drainIfIdle();
     }
 
-    private Date getDateDaysAgo(int days) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.DAY_OF_YEAR, -days);
-        return calendar.getTime();
+    /**
+     * 把所有线程的暂存区按时间顺序合并写入文件，只能由持有者调用
+     */
+    private void drainStagingBuffers() {
+        int drained = 0;
+        LogStagingBuffer[] buffers = stagingBuffers;
+        for (LogStagingBuffer buffer : buffers) {
+            drained += buffer.swap();
+        }
+        if (drained == 0) {
+            return;
+        }
+
+        // 各暂存区内部已按时间排序，每次取队首时间最早的一条
+        try {
+            for (int i = 0; i < drained; i++) {
+                LogStagingBuffer earliest = LogStagingBuffer.earliest(buffers);
+                try {
+                    writeLogSafely(earliest.peekTime(), earliest.peekLevel(), earliest.peekTag(), earliest.peekMessage());
+                } finally {
+                    earliest.advance();
+                }
+            }
+        } finally {
+            // 计数不能漏减，否则 drainIfIdle 会一直循环
+            pendingCount.addAndGet(-drained);
+        }
+
+        for (LogStagingBuffer buffer : buffers) {
+            if (buffer.isAbandoned()) {
+                removeStagingBuffer(buffer);
+            }
+        }
     }
 
-    public void appendLog(String log) {
-        openNewLogForToday();
+    private void addStagingBuffer(LogStagingBuffer buffer) {
+        synchronized (stagingLock) {
+            LogStagingBuffer[] buffers = stagingBuffers;
+            LogStagingBuffer[] snapshot = Arrays.copyOf(buffers, buffers.length + 1);
+            snapshot[buffers.length] = buffer;
+            stagingBuffers = snapshot;
+        }
+    }
+
+    private void removeStagingBuffer(LogStagingBuffer buffer) {
+        synchronized (stagingLock) {
+            LogStagingBuffer[] buffers = stagingBuffers;
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i] == buffer) {
+                    LogStagingBuffer[] snapshot = new LogStagingBuffer[buffers.length - 1];
+                    System.arraycopy(buffers, 0, snapshot, 0, i);
+                    System.arraycopy(buffers, i + 1, snapshot, i, buffers.length - i - 1);
+                    stagingBuffers = snapshot;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 异步模式下 LogWriterThread 的写入入口
+     */
+    private void writeLogAsOwner(LogRecord record) {
+        ownerLock.lock();
+        try {
+            writeLogSafely(record.getTimeMillis(), record.getLevel(), record.getTag(), record.getMessage());
+        } finally {
+            ownerLock.unlock();
+        }
+    }
+
+    /**
+     * 写入一条日志，异常只影响这一条，不会中断后面的日志和写线程
+     */
+    private void writeLogSafely(long timeMillis, int level, String tag, String log) {
+        try {
+            writeLog(timeMillis, level, tag, log);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "写入日志异常", e);
+        }
+    }
+
+    /**
+     * 实际写入文件，只能由持有者调用
+     */
+    private void writeLog(long timeMillis, int level, String tag, String log) {
+        // 按写入时的时钟切换日期：多个线程和异步队列的日志可能乱序到达，按日志自身的时间判断会在两天的文件之间来回切换；
+        // 零点前产生、零点后才写入的日志写进新一天的文件
+        openNewLogForToday(System.currentTimeMillis());
 
         if (currentWriter != null && currentWriter.isOpened()) {
-            String timeStamp = new SimpleDateFormat("MM-dd HH:mm:ss.SSS").format(new Date());
-            currentWriter.appendLog(timeStamp + " " + log);
+            currentWriter.appendRecord(timeMillis, level, tag, log);
+            int lineChars = LogLineBuffer.lineLength(level, tag, log) + 1;
+            // 按行计数，写满剩余配额时交给后台线程清理，写入线程不等待
+            if (config.getMaxTotalLogSize() > 0
+                    && quotaCharsWritten.addAndGet(lineChars) >= quotaCharsHeadroom) {
+                scheduleQuotaCheck();
+            }
+            if ((segmentCharsSinceCheck += lineChars) >= segmentCheckChars) {
+                checkSegmentSize();
+            }
         }
     }
 
+    /**
+     * 异步模式下因缓冲区写满而被丢弃的日志条数
+     */
+    public long getDroppedLogCount() {
+        return asyncAppender != null ? asyncAppender.getDroppedCount() : 0L;
+    }
+
     public synchronized void close() {
-        if (currentWriter != null) {
-            currentWriter.close();
+        if (asyncAppender != null) {
+            asyncAppender.close();
         }
+        runAsOwner(() -> {
+            if (currentWriter != null) {
+                currentWriter.close();
+            }
+            discardPreparedWriter();
+        });
         if (sizeCleanupScheduler != null && !sizeCleanupScheduler.isShutdown()) {
             sizeCleanupScheduler.shutdown();
         }
         if (compressionScheduler != null && !compressionScheduler.isShutdown()) {
             compressionScheduler.shutdown();
         }
+        if (compressionPool != null && !compressionPool.isShutdown()) {
+            compressionPool.shutdown();
+        }
     }
 }
\ No newline at end of file
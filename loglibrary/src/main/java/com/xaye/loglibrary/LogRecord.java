@@ -0,0 +1,103 @@
+package com.xaye.loglibrary;
+
+/**
+ * 一条日志事件：XLogger 每条日志只填充一次，再依次交给各个 LogSink、LogPrinter。
+ * 对象可复用：{@link #obtain} 优先取当前线程缓存的实例，{@link #recycle()} 后归还；
+ * 分发结束后会被回收，需要保留日志的目标应复制其中的字段，不能持有对象本身。
+ */
+public final class LogRecord {
+    private static final ThreadLocal<LogRecord> CACHE = new ThreadLocal<LogRecord>() {
+        @Override
+        protected LogRecord initialValue() {
+            return new LogRecord(true);
+        }
+    };
+
+    private final boolean cached; // 是否为线程缓存的实例，其余实例回收后交给 GC
+    private boolean inUse;
+
+    private long timeMillis;
+    private int level;
+    private String tag;
+    private String message;
+    private Throwable throwable;
+    private long threadId;
+    private String threadName;
+
+    private LogRecord(boolean cached) {
+        this.cached = cached;
+    }
+
+    /**
+     * 取得一条日志记录，线程信息取当前线程
+     *
+     * @param message   日志文本，有 throwable 时已包含格式化后的堆栈
+     * @param throwable 原始异常，没有时为 null
+     */
+    public static LogRecord obtain(long timeMillis, int level, String tag, String message, Throwable throwable) {
+        Thread thread = Thread.currentThread();
+        return obtain(timeMillis, level, tag, message, throwable, thread.getId(), thread.getName());
+    }
+
+    /**
+     * 取得一条日志记录，用于在其他线程上还原已入队的日志
+     */
+    public static LogRecord obtain(long timeMillis, int level, String tag, String message, Throwable throwable,
+                                   long threadId, String threadName) {
+        LogRecord record = CACHE.get();
+        if (record.inUse) {
+            // 分发过程中再次打日志（如 LogSink 内部打日志）时缓存的实例还在使用
+            record = new LogRecord(false);
+        }
+        record.inUse = true;
+        record.timeMillis = timeMillis;
+        record.level = level;
+        record.tag = tag;
+        record.message = message;
+        record.throwable = throwable;
+        record.threadId = threadId;
+        record.threadName = threadName;
+        return record;
+    }
+
+    /**
+     * 归还记录，只能在 obtain 的线程上调用，调用后不能再访问
+     */
+    public void recycle() {
+        tag = null;
+        message = null;
+        throwable = null;
+        threadName = null;
+        if (cached) {
+            inUse = false;
+        }
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Throwable getThrowable() {
+        return throwable;
+    }
+
+    public long getThreadId() {
+        return threadId;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+}
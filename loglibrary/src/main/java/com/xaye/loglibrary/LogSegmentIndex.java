@@ -0,0 +1,225 @@
+package com.xaye.loglibrary;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 日志目录的内存索引：启动时扫描一次目录，之后在切换日志、压缩、删除时增量更新，
+ * 按日期清理和按总大小清理都只查索引，不再反复 listFiles、匹配文件名和逐个读取文件大小。
+ * 段按日期和当天的分段序号排序，最早的在前；索引外的修改（如手动删除文件）在下次启动时纠正。
+ */
+final class LogSegmentIndex {
+
+    /**
+     * 一个日志文件（.log/.xlog/.log.gz）或压缩包（.zip）
+     */
+    static final class Segment {
+        final String name;
+        final String date; // yyyy-MM-dd
+        final int sequence; // 当天的分段序号，第一个分段为 0
+        final boolean compressed;
+        long size;
+
+        Segment(String name, String date, int sequence, boolean compressed) {
+            this.name = name;
+            this.date = date;
+            this.sequence = sequence;
+            this.compressed = compressed;
+        }
+
+        /**
+         * 排序键 "日期/序号/文件名"，序号补齐到固定宽度以便按字符串排序
+         */
+        String key() {
+            String number = Integer.toString(sequence);
+            StringBuilder key = new StringBuilder(date.length() + SEQUENCE_WIDTH + name.length() + 2);
+            key.append(date).append('/');
+            for (int i = number.length(); i < SEQUENCE_WIDTH; i++) {
+                key.append('0');
+            }
+            return key.append(number).append('/').append(name).toString();
+        }
+    }
+
+    private static final int SEQUENCE_WIDTH = 9;
+
+    private final File directory;
+    private final TreeMap<String, Segment> segments = new TreeMap<>();
+    private long totalSize;
+
+    LogSegmentIndex(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 扫描目录重建索引，只在启动时调用
+     */
+    synchronized void rebuild() {
+        segments.clear();
+        totalSize = 0;
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isFile()) {
+                put(file.getName(), file.length());
+            }
+        }
+    }
+
+    /**
+     * 新增或更新一个段，不是日志文件名时忽略
+     */
+    synchronized void put(String name, long size) {
+        Segment parsed = parse(name);
+        if (parsed == null) {
+            return;
+        }
+        String key = parsed.key();
+        Segment segment = segments.get(key);
+        if (segment == null) {
+            segment = parsed;
+            segments.put(key, segment);
+        }
+        totalSize += size - segment.size;
+        segment.size = size;
+    }
+
+    synchronized void remove(String name) {
+        Segment parsed = parse(name);
+        if (parsed == null) {
+            return;
+        }
+        Segment segment = segments.remove(parsed.key());
+        if (segment != null) {
+            totalSize -= segment.size;
+        }
+    }
+
+    synchronized boolean contains(String name) {
+        Segment parsed = parse(name);
+        return parsed != null && segments.containsKey(parsed.key());
+    }
+
+    synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * @return 除 excludeName 和 busyNames 外最早的段，没有时返回 null
+     */
+    synchronized Segment oldestExcept(String excludeName, Set<String> busyNames) {
+        for (Segment segment : segments.values()) {
+            if (!segment.name.equals(excludeName) && !busyNames.contains(segment.name)) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return date 当天序号最大的段，没有时返回 null
+     */
+    synchronized Segment latest(String date) {
+        Map.Entry<String, Segment> entry = segments.floorEntry(date + "/\uFFFF");
+        return entry != null && entry.getValue().date.equals(date) ? entry.getValue() : null;
+    }
+
+    /**
+     * @return 日期不晚于 limitDate 的段，最早的在前
+     */
+    synchronized List<Segment> onOrBefore(String limitDate) {
+        List<Segment> result = new ArrayList<>();
+        // 键以 "日期/" 开头，"limitDate/\uFFFF" 之前即为不晚于 limitDate 的全部段
+        for (Segment segment : segments.headMap(limitDate + "/\uFFFF").values()) {
+            result.add(segment);
+        }
+        return result;
+    }
+
+    /**
+     * @return 尚未压缩的段（不含 excludeName），最早的在前
+     */
+    synchronized List<Segment> uncompressed(String excludeName) {
+        List<Segment> result = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (!segment.compressed && !segment.name.equals(excludeName)) {
+                result.add(segment);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 从文件名解析日期和分段序号，支持：
+     * yyyy-MM-dd[.N].log、yyyy-MM-dd[.N].xlog、yyyy-MM-dd[.N].log.gz、yyyy_MM_dd[_N]_log.zip、yyyy_MM_dd[_N]_xlog.zip，
+     * 以及旧格式 yyyy-MM-dd.zip、yyyy-MM-dd_HHmm.zip；省略 N 时序号为 0
+     *
+     * @return 大小为 0 的段，不是日志文件时返回 null
+     */
+    static Segment parse(String name) {
+        if (name.length() < 10) {
+            return null;
+        }
+        char separator = name.charAt(4);
+        if ((separator != '-' && separator != '_') || name.charAt(7) != separator) {
+            return null;
+        }
+        if (!isDigits(name, 0, 4) || !isDigits(name, 5, 7) || !isDigits(name, 8, 10)) {
+            return null;
+        }
+        String date = separator == '-' ? name.substring(0, 10) : name.substring(0, 10).replace('_', '-');
+
+        if (separator == '-') {
+            // 旧格式的压缩包
+            if ((name.length() == 14 && name.endsWith(".zip"))
+                    || (name.length() == 19 && name.charAt(10) == '_' && isDigits(name, 11, 15) && name.endsWith(".zip"))) {
+                return new Segment(name, date, 0, true);
+            }
+        }
+
+        // 分段序号紧跟日期，以 '.'（日志文件）或 '_'（压缩包）分隔
+        char delimiter = separator == '-' ? '.' : '_';
+        if (name.length() < 12 || name.charAt(10) != delimiter) {
+            return null;
+        }
+        int extensionStart = 11;
+        int sequence = 0;
+        int digitsEnd = 11;
+        while (digitsEnd < name.length() && digitsEnd - 11 < SEQUENCE_WIDTH && isDigits(name, digitsEnd, digitsEnd + 1)) {
+            digitsEnd++;
+        }
+        if (digitsEnd > 11 && digitsEnd < name.length() && name.charAt(digitsEnd) == delimiter) {
+            sequence = Integer.parseInt(name.substring(11, digitsEnd));
+            extensionStart = digitsEnd + 1;
+        }
+
+        String extension = name.substring(extensionStart);
+        if (separator == '-') {
+            if (extension.equals("log") || extension.equals("xlog")) {
+                return new Segment(name, date, sequence, false);
+            }
+            if (extension.equals("log.gz")) {
+                return new Segment(name, date, sequence, true);
+            }
+        } else if (extension.equals("log.zip") || extension.equals("xlog.zip")) {
+            return new Segment(name, date, sequence, true);
+        }
+        return null;
+    }
+
+    private static boolean isDigits(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,133 @@
+package com.xaye.loglibrary;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * 单个线程的日志暂存区：
+ * 每个写日志的线程只往自己的暂存区追加，暂存区的锁只在本线程和写文件的持有者之间竞争；
+ * 持有者通过 {@link #swap()} 一次性取走全部日志后，无需加锁即可按顺序读取。
+ */
+final class LogStagingBuffer {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final WeakReference<Thread> ownerThread;
+
+    // 生产端：本线程追加
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int[] levels = new int[INITIAL_CAPACITY];
+    private String[] tags = new String[INITIAL_CAPACITY];
+    private String[] messages = new String[INITIAL_CAPACITY];
+    private int size;
+
+    // 消费端：持有者取走后读取，read 为读取位置
+    private long[] drainedTimes = new long[INITIAL_CAPACITY];
+    private int[] drainedLevels = new int[INITIAL_CAPACITY];
+    private String[] drainedTags = new String[INITIAL_CAPACITY];
+    private String[] drainedMessages = new String[INITIAL_CAPACITY];
+    private int drainedSize;
+    private int read;
+
+    LogStagingBuffer(Thread thread) {
+        this.ownerThread = new WeakReference<>(thread);
+    }
+
+    /**
+     * 追加一条日志
+     *
+     * @return 追加后暂存区中的日志条数
+     */
+    synchronized int add(long timeMillis, int level, String tag, String message) {
+        if (size == times.length) {
+            int newCapacity = size << 1;
+            long[] newTimes = new long[newCapacity];
+            int[] newLevels = new int[newCapacity];
+            String[] newTags = new String[newCapacity];
+            String[] newMessages = new String[newCapacity];
+            System.arraycopy(times, 0, newTimes, 0, size);
+            System.arraycopy(levels, 0, newLevels, 0, size);
+            System.arraycopy(tags, 0, newTags, 0, size);
+            System.arraycopy(messages, 0, newMessages, 0, size);
+            times = newTimes;
+            levels = newLevels;
+            tags = newTags;
+            messages = newMessages;
+        }
+        times[size] = timeMillis;
+        levels[size] = level;
+        tags[size] = tag;
+        messages[size] = message;
+        return ++size;
+    }
+
+    /**
+     * 交换生产端和消费端的数组，只能由持有者调用，且要在上一批读完之后
+     *
+     * @return 本次取走的日志条数
+     */
+    synchronized int swap() {
+        long[] swapTimes = drainedTimes;
+        int[] swapLevels = drainedLevels;
+        String[] swapTags = drainedTags;
+        String[] swapMessages = drainedMessages;
+        drainedTimes = times;
+        drainedLevels = levels;
+        drainedTags = tags;
+        drainedMessages = messages;
+        drainedSize = size;
+        read = 0;
+        times = swapTimes;
+        levels = swapLevels;
+        tags = swapTags;
+        messages = swapMessages;
+        size = 0;
+        return drainedSize;
+    }
+
+    /**
+     * 找出队首时间最早的暂存区，时间相同时取数组中靠前的一个；都已读完时返回 null。
+     * 各暂存区内部已按时间排序，反复取队首即可把所有线程的日志按时间合并
+     */
+    static LogStagingBuffer earliest(LogStagingBuffer[] buffers) {
+        LogStagingBuffer earliest = null;
+        for (LogStagingBuffer buffer : buffers) {
+            if (buffer.hasDrained() && (earliest == null || buffer.peekTime() < earliest.peekTime())) {
+                earliest = buffer;
+            }
+        }
+        return earliest;
+    }
+
+    boolean hasDrained() {
+        return read < drainedSize;
+    }
+
+    long peekTime() {
+        return drainedTimes[read];
+    }
+
+    int peekLevel() {
+        return drainedLevels[read];
+    }
+
+    String peekTag() {
+        return drainedTags[read];
+    }
+
+    String peekMessage() {
+        return drainedMessages[read];
+    }
+
+    void advance() {
+        drainedTags[read] = null;
+        drainedMessages[read] = null;
+        read++;
+    }
+
+    /**
+     * 所属线程已结束且没有残留日志时，可以从持有者的列表中移除
+     */
+    synchronized boolean isAbandoned() {
+        Thread thread = ownerThread.get();
+        return size == 0 && !hasDrained() && (thread == null || !thread.isAlive());
+    }
+}
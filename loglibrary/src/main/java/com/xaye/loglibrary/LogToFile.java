@@ -4,6 +4,9 @@ import android.annotation.SuppressLint;
 import android.os.Build;
 
 import com.xaye.loglibrary.file.SimpleWriter;
+import com.xaye.loglibrary.utils.DayBoundary;
+import com.xaye.loglibrary.utils.LogLevel;
+import com.xaye.loglibrary.utils.LogLineBuffer;
 
 import java.io.File;
 import java.text.SimpleDateFormat;
@@ -12,8 +15,8 @@ import java.util.Calendar;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Author xaye
@@ -24,16 +27,21 @@ import java.util.concurrent.TimeUnit;
 /**
  * 按日期创建和切换日志文件，每天生成一个新日志文件；
  * 定时清理过期日志（按保留天数）；
- * 控制日志总大小，超出限制时删除旧文件，支持处理当前正在写入的日志文件；
+ * 控制日志总大小，切换日期和写入量达到总大小限制的 1/{@value #SIZE_CHECKS_PER_QUOTA} 时检查，
+ * 超出限制时删除旧文件，支持处理当前正在写入的日志文件；
  * 低优先级后台线程执行清理任务，避免影响主线程。
  */
 final class LogToFile {
+    private static final int SIZE_CHECKS_PER_QUOTA = 10;
+    private static final long MIN_SIZE_CHECK_CHARS = 4 * 1024;
     private static LogToFile instance;
     private SimpleWriter currentWriter;
     private String currentLogDate;
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+    private final DayBoundary dayBoundary = new DayBoundary();
+    private final LogLineBuffer lineBuffer = new LogLineBuffer();
     private LogConfiguration config;
     private final ScheduledExecutorService sizeCleanupScheduler; //后台线程池
+    private long charsSinceSizeCheck; // 上次检查总大小以来写入的字符数
 
     private LogToFile(LogConfiguration config) {
         this.config = config;
@@ -43,10 +51,7 @@ final class LogToFile {
             t.setPriority(Thread.MIN_PRIORITY); // 设置为低优先级，避免抢占业务线程资源
             return t;
         });
-        openNewLogForToday();
-
-        // 启动后台“大小”清理任务
-        startBackgroundSizeCleanup();
+        openNewLogForToday(System.currentTimeMillis());
     }
 
     public static synchronized LogToFile getInstance(LogConfiguration config) {
@@ -58,36 +63,37 @@ final class LogToFile {
 
 
     /**
-     * 启动大小清理的后台任务
+     * 在后台执行大小清理，代替按固定间隔轮询
      */
-    private void startBackgroundSizeCleanup() {
+    private void scheduleSizeCleanup() {
+        charsSinceSizeCheck = 0;
         if (config.getMaxTotalLogSize() > 0) {
-            long interval = config.getLogSizeCheckInterval();
-            // 只定期执行大小清理任务
-            sizeCleanupScheduler.scheduleWithFixedDelay(
-                    this::cleanupOldLogsBySize,
-                    interval,  // 初始延迟
-                    interval,  // 每次任务结束到下一次开始的间隔（而非固定速率）
-                    TimeUnit.MILLISECONDS
-            );
+            try {
+                sizeCleanupScheduler.execute(this::cleanupOldLogsBySize);
+            } catch (RejectedExecutionException e) {
+                // 已关闭
+            }
         }
     }
 
     /**
-     * 打开今天的日志文件
+     * 打开今天的日志文件，日期未变化时只做一次边界比较
      */
-    private void openNewLogForToday() {
-        String today = DATE_FORMAT.format(new Date());
-        if (!today.equals(currentLogDate)) {
+    private void openNewLogForToday(long timeMillis) {
+        if (!dayBoundary.isCrossed(timeMillis)) {
+            return;
+        }
+        if (dayBoundary.refresh(timeMillis) || currentWriter == null) {
             if (currentWriter != null) {
                 currentWriter.close();
             }
-            currentLogDate = today;
+            currentLogDate = dayBoundary.getDate();
             new File(config.getLogDirectory()).mkdirs();
             File logFile = new File(config.getLogDirectory(), currentLogDate + ".log");
             currentWriter = new SimpleWriter();
             currentWriter.open(logFile);
             cleanupOldLogsByDate();
+            scheduleSizeCleanup();
         }
     }
 
@@ -162,11 +168,17 @@ final class LogToFile {
     }
 
     public void appendLog(String log) {
-        openNewLogForToday();
+        long timeMillis = System.currentTimeMillis();
+        openNewLogForToday(timeMillis);
 
         if (currentWriter != null && currentWriter.isOpened()) {
-            String timeStamp = new SimpleDateFormat("MM-dd HH:mm:ss.SSS").format(new Date());
-            currentWriter.appendLog(timeStamp + " " + log);
+            lineBuffer.encode(timeMillis, log);
+            currentWriter.appendLog(LogLevel.INFO, lineBuffer.getBuffer(), 0, lineBuffer.length());
+            long maxSize = config.getMaxTotalLogSize();
+            if (maxSize > 0 && (charsSinceSizeCheck += lineBuffer.length() + 1)
+                    >= Math.max(MIN_SIZE_CHECK_CHARS, maxSize / SIZE_CHECKS_PER_QUOTA)) {
+                scheduleSizeCleanup();
+            }
         }
     }
 
@@ -0,0 +1,8 @@
+package com.xaye.loglibrary;
+
+/**
+ * Builds a log message lazily, only after the level check has passed.
+ */
+public interface MessageSupplier {
+    String get();
+}
@@ -3,13 +3,23 @@ package com.xaye.loglibrary;
 import android.util.Log;
 
 import com.xaye.loglibrary.format.JsonLogFormatter;
-import com.xaye.loglibrary.format.LogFormatter;
 import com.xaye.loglibrary.format.ThrowableLogFormatter;
 import com.xaye.loglibrary.format.XmlLogFormatter;
 import com.xaye.loglibrary.printer.ConsoleLogPrinter;
 import com.xaye.loglibrary.printer.LogPrinter;
+import com.xaye.loglibrary.sink.LogSink;
+import com.xaye.loglibrary.sink.PrinterSink;
 import com.xaye.loglibrary.utils.LogLevel;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 
 /**
  * Author xaye
@@ -17,10 +27,33 @@ import com.xaye.loglibrary.utils.LogLevel;
  * @date: 2024/6/28
  */
 public class XLogger {
-    private static LogConfiguration config;
+    // Read without the lock once a call gets past levelThreshold, so it must be published safely;
+    // init writes it before updateThresholds publishes the threshold.
+    private static volatile LogConfiguration config;
     private static boolean sIsInitialized;
 
-    private static LogPrinter logPrinter = new ConsoleLogPrinter();
+    // debugEnabled and logLevel folded into one int so a filtered call costs a single compare.
+    // Deliberately not volatile: a stale read only falls through to the synchronized slow path
+    // or sees the previous level for a moment; config is volatile and written first.
+    private static final int THRESHOLD_UNINITIALIZED = Integer.MIN_VALUE;
+    private static int levelThreshold = THRESHOLD_UNINITIALIZED;
+
+    // Runtime overrides win over LogConfiguration.getLogLevel(); written under the XLogger lock.
+    // levelThreshold is the lowest of all of them, these decide once a call gets past it.
+    private static Integer globalLevelOverride;
+    private static volatile int globalThreshold = LogLevel.NONE;
+    private static volatile Map<String, Integer> tagLevels = Collections.emptyMap();
+
+    // Console output is always dispatched first so a slow sink never delays logcat
+    private static final PrinterSink consoleSink = new PrinterSink(new ConsoleLogPrinter());
+    private static final List<LogSink> customSinks = new CopyOnWriteArrayList<>();
+    private static FileLogSink fileSink;
+    private static volatile LogSink[] sinks = {consoleSink};
+
+    // Formatters are stateless, so one shared instance of each is reused for every call
+    private static final ThrowableLogFormatter throwableFormatter = new ThrowableLogFormatter();
+    private static JsonLogFormatter jsonFormatter = new JsonLogFormatter();
+    private static XmlLogFormatter xmlFormatter = new XmlLogFormatter();
 
     private XLogger() {
     }
@@ -30,29 +63,196 @@ public class XLogger {
         init(new LogConfiguration.Builder().build());
     }
 
-    public static void init(LogConfiguration configuration) {
+    public static synchronized void init(LogConfiguration configuration) {
         config = configuration;
+        if (consoleSink.getPrinter() instanceof ConsoleLogPrinter) {
+            ((ConsoleLogPrinter) consoleSink.getPrinter()).setMaxLogLength(configuration.getMaxLogLength());
+        }
+        jsonFormatter = new JsonLogFormatter(configuration.getFormatMaxLength(), configuration.getFormatMaxLines());
+        xmlFormatter = new XmlLogFormatter(XmlLogFormatter.DEFAULT_MAX_FORMAT_LENGTH,
+                configuration.getFormatMaxLength(), configuration.getFormatMaxLines());
+        fileSink = configuration.isSaveLogEnabled() ? new FileLogSink(configuration) : null;
         sIsInitialized = true;
+        publishSinks();
+        updateThresholds();
+    }
+
+    /**
+     * Change the level of every tag without an override of its own, replacing
+     * {@link LogConfiguration#getLogLevel()} until {@link #resetLogLevel()}. Takes effect
+     * for all outputs, including the file writer, without re-initializing anything.
+     */
+    public static synchronized void setLogLevel(int level) {
+        globalLevelOverride = level;
+        updateThresholds();
+    }
+
+    // Back to the level from LogConfiguration
+    public static synchronized void resetLogLevel() {
+        globalLevelOverride = null;
+        updateThresholds();
+    }
+
+    /**
+     * Give one tag its own level, e.g. VERBOSE for a single subsystem while the rest stays at INFO.
+     * Calls without an explicit tag are matched against {@link LogConfiguration#getTag()}.
+     * The debugEnabled switch still turns everything off.
+     */
+    public static synchronized void setTagLogLevel(String tag, int level) {
+        Map<String, Integer> levels = new HashMap<>(tagLevels);
+        levels.put(tag, level);
+        tagLevels = Collections.unmodifiableMap(levels);
+        updateThresholds();
+    }
+
+    public static synchronized void removeTagLogLevel(String tag) {
+        if (tagLevels.containsKey(tag)) {
+            Map<String, Integer> levels = new HashMap<>(tagLevels);
+            levels.remove(tag);
+            tagLevels = levels.isEmpty() ? Collections.<String, Integer>emptyMap() : Collections.unmodifiableMap(levels);
+            updateThresholds();
+        }
+    }
+
+    public static synchronized void clearTagLogLevels() {
+        tagLevels = Collections.emptyMap();
+        updateThresholds();
+    }
+
+    // Called with the XLogger lock held; before init the thresholds are computed by init itself
+    private static void updateThresholds() {
+        if (!sIsInitialized) {
+            return;
+        }
+        if (!config.isDebugEnabled()) {
+            globalThreshold = LogLevel.NONE;
+            levelThreshold = LogLevel.NONE;
+            return;
+        }
+        int global = clampThreshold(globalLevelOverride != null ? globalLevelOverride : config.getLogLevel());
+        int threshold = global;
+        for (Integer level : tagLevels.values()) {
+            threshold = Math.min(threshold, clampThreshold(level));
+        }
+        globalThreshold = global;
+        levelThreshold = threshold;
+    }
+
+    // Never returns THRESHOLD_UNINITIALIZED: LogLevel.ALL is clamped to the next value up
+    private static int clampThreshold(int level) {
+        return Math.max(level, THRESHOLD_UNINITIALIZED + 1);
+    }
+
+    /**
+     * Register an additional output; it receives every line that passes the global level
+     * and its own {@link LogSink#isLoggable(int)}. Wrap slow sinks in an AsyncLogSink.
+     */
+    public static void addSink(LogSink sink) {
+        if (sink != null) {
+            customSinks.add(sink);
+            publishSinks();
+        }
+    }
+
+    public static void removeSink(LogSink sink) {
+        if (customSinks.remove(sink)) {
+            publishSinks();
+        }
+    }
+
+    private static synchronized void publishSinks() {
+        List<LogSink> snapshot = new ArrayList<>();
+        snapshot.add(consoleSink);
+        if (fileSink != null) {
+            snapshot.add(fileSink);
+        }
+        snapshot.addAll(customSinks);
+        sinks = snapshot.toArray(new LogSink[0]);
     }
 
     public static void log(int level, String tag, String message) {
-        assertInitialization();
+        if (isLoggable(tag, level)) {
+            dispatch(level, tag, message, null);
+        }
+    }
 
-        if (config.isDebugEnabled() && config.getLogLevel() <= level) {
+    // Fill one pooled record per event and hand the same instance to every sink
+    private static void dispatch(int level, String tag, String message, Throwable tr) {
+        String logTag = (tag != null) ? tag : getTAG();
 
-            String formattedMessage = message;
+        LogRecord record = LogRecord.obtain(System.currentTimeMillis(), level, logTag, message, tr);
+        try {
+            for (LogSink sink : sinks) {
+                if (sink.isLoggable(level)) {
+                    sink.write(record);
+                }
+            }
+        } finally {
+            record.recycle();
+        }
+    }
 
-            String logTag = (tag != null) ? tag : getTAG();
+    // Lazy messages: the supplier or format is only evaluated when the level passes
+    public static void log(int level, String tag, MessageSupplier supplier) {
+        if (isLoggable(tag, level)) {
+            log(level, tag, supplier.get());
+        }
+    }
 
-            logPrinter.printLog(level, logTag, formattedMessage, null);
+    public static void log(int level, String tag, String message, Throwable tr) {
+        logThrowable(level, tag, message, tr);
+    }
 
-            if (config.isSaveLogEnabled()) {
-                //LogToFile.getInstance(config).appendLog(formattedMessage);
-                LogFileManager.getInstance(config).appendLog(formattedMessage);
+    // Like android.util.Log and SLF4J, a trailing Throwable is logged with its stack trace
+    // instead of being silently dropped by String.format
+    public static void log(int level, String tag, String format, Object... args) {
+        if (isLoggable(tag, level)) {
+            String message = format(format, args);
+            Object last = args != null && args.length > 0 ? args[args.length - 1] : null;
+            if (last instanceof Throwable) {
+                logThrowable(level, tag, message, (Throwable) last);
+            } else {
+                log(level, tag, message);
             }
         }
     }
 
+    // Primitive overloads avoid boxing the argument when the level is filtered.
+    // char has its own overload, otherwise it widens to int and "%s" prints the code point.
+    public static void log(int level, String tag, String format, int arg) {
+        if (isLoggable(tag, level)) {
+            log(level, tag, format(format, arg));
+        }
+    }
+
+    public static void log(int level, String tag, String format, long arg) {
+        if (isLoggable(tag, level)) {
+            log(level, tag, format(format, arg));
+        }
+    }
+
+    public static void log(int level, String tag, String format, double arg) {
+        if (isLoggable(tag, level)) {
+            log(level, tag, format(format, arg));
+        }
+    }
+
+    public static void log(int level, String tag, String format, char arg) {
+        if (isLoggable(tag, level)) {
+            log(level, tag, format(format, arg));
+        }
+    }
+
+    // A bad format string or a mismatched argument must not throw out of a logging call:
+    // the raw format and the arguments are logged instead
+    private static String format(String format, Object... args) {
+        try {
+            return String.format(format, args);
+        } catch (IllegalFormatException e) {
+            return format + " " + Arrays.toString(args);
+        }
+    }
+
     public static void v(String message) {
         log(LogLevel.VERBOSE, null, message);
     }
@@ -62,7 +262,39 @@ public class XLogger {
     }
 
     public static void v(String msg, Throwable tr) {
-        log(LogLevel.VERBOSE, null, buildTrMessage(msg, tr));
+        logThrowable(LogLevel.VERBOSE, null, msg, tr);
+    }
+
+    public static void v(String tag, String msg, Throwable tr) {
+        logThrowable(LogLevel.VERBOSE, tag, msg, tr);
+    }
+
+    public static void v(MessageSupplier supplier) {
+        log(LogLevel.VERBOSE, null, supplier);
+    }
+
+    public static void v(String tag, MessageSupplier supplier) {
+        log(LogLevel.VERBOSE, tag, supplier);
+    }
+
+    public static void v(String tag, String format, Object... args) {
+        log(LogLevel.VERBOSE, tag, format, args);
+    }
+
+    public static void v(String tag, String format, int arg) {
+        log(LogLevel.VERBOSE, tag, format, arg);
+    }
+
+    public static void v(String tag, String format, long arg) {
+        log(LogLevel.VERBOSE, tag, format, arg);
+    }
+
+    public static void v(String tag, String format, double arg) {
+        log(LogLevel.VERBOSE, tag, format, arg);
+    }
+
+    public static void v(String tag, String format, char arg) {
+        log(LogLevel.VERBOSE, tag, format, arg);
     }
 
     public static void d(String message) {
@@ -74,7 +306,39 @@ public class XLogger {
     }
 
     public static void d(String msg, Throwable tr) {
-        log(LogLevel.DEBUG, null, buildTrMessage(msg, tr));
+        logThrowable(LogLevel.DEBUG, null, msg, tr);
+    }
+
+    public static void d(String tag, String msg, Throwable tr) {
+        logThrowable(LogLevel.DEBUG, tag, msg, tr);
+    }
+
+    public static void d(MessageSupplier supplier) {
+        log(LogLevel.DEBUG, null, supplier);
+    }
+
+    public static void d(String tag, MessageSupplier supplier) {
+        log(LogLevel.DEBUG, tag, supplier);
+    }
+
+    public static void d(String tag, String format, Object... args) {
+        log(LogLevel.DEBUG, tag, format, args);
+    }
+
+    public static void d(String tag, String format, int arg) {
+        log(LogLevel.DEBUG, tag, format, arg);
+    }
+
+    public static void d(String tag, String format, long arg) {
+        log(LogLevel.DEBUG, tag, format, arg);
+    }
+
+    public static void d(String tag, String format, double arg) {
+        log(LogLevel.DEBUG, tag, format, arg);
+    }
+
+    public static void d(String tag, String format, char arg) {
+        log(LogLevel.DEBUG, tag, format, arg);
     }
 
     public static void i(String message) {
@@ -86,7 +350,39 @@ public class XLogger {
     }
 
     public static void i(String message, Throwable tr) {
-        log(LogLevel.INFO, null, buildTrMessage(message, tr));
+        logThrowable(LogLevel.INFO, null, message, tr);
+    }
+
+    public static void i(String tag, String message, Throwable tr) {
+        logThrowable(LogLevel.INFO, tag, message, tr);
+    }
+
+    public static void i(MessageSupplier supplier) {
+        log(LogLevel.INFO, null, supplier);
+    }
+
+    public static void i(String tag, MessageSupplier supplier) {
+        log(LogLevel.INFO, tag, supplier);
+    }
+
+    public static void i(String tag, String format, Object... args) {
+        log(LogLevel.INFO, tag, format, args);
+    }
+
+    public static void i(String tag, String format, int arg) {
+        log(LogLevel.INFO, tag, format, arg);
+    }
+
+    public static void i(String tag, String format, long arg) {
+        log(LogLevel.INFO, tag, format, arg);
+    }
+
+    public static void i(String tag, String format, double arg) {
+        log(LogLevel.INFO, tag, format, arg);
+    }
+
+    public static void i(String tag, String format, char arg) {
+        log(LogLevel.INFO, tag, format, arg);
     }
 
     public static void w(String message) {
@@ -98,7 +394,39 @@ public class XLogger {
     }
 
     public static void w(String message, Throwable tr) {
-        log(LogLevel.WARN, null, buildTrMessage(message, tr));
+        logThrowable(LogLevel.WARN, null, message, tr);
+    }
+
+    public static void w(String tag, String message, Throwable tr) {
+        logThrowable(LogLevel.WARN, tag, message, tr);
+    }
+
+    public static void w(MessageSupplier supplier) {
+        log(LogLevel.WARN, null, supplier);
+    }
+
+    public static void w(String tag, MessageSupplier supplier) {
+        log(LogLevel.WARN, tag, supplier);
+    }
+
+    public static void w(String tag, String format, Object... args) {
+        log(LogLevel.WARN, tag, format, args);
+    }
+
+    public static void w(String tag, String format, int arg) {
+        log(LogLevel.WARN, tag, format, arg);
+    }
+
+    public static void w(String tag, String format, long arg) {
+        log(LogLevel.WARN, tag, format, arg);
+    }
+
+    public static void w(String tag, String format, double arg) {
+        log(LogLevel.WARN, tag, format, arg);
+    }
+
+    public static void w(String tag, String format, char arg) {
+        log(LogLevel.WARN, tag, format, arg);
     }
 
     public static void e(String message) {
@@ -110,7 +438,39 @@ public class XLogger {
     }
 
     public static void e(String message, Throwable tr) {
-        log(LogLevel.ERROR, null, buildTrMessage(message, tr));
+        logThrowable(LogLevel.ERROR, null, message, tr);
+    }
+
+    public static void e(String tag, String message, Throwable tr) {
+        logThrowable(LogLevel.ERROR, tag, message, tr);
+    }
+
+    public static void e(MessageSupplier supplier) {
+        log(LogLevel.ERROR, null, supplier);
+    }
+
+    public static void e(String tag, MessageSupplier supplier) {
+        log(LogLevel.ERROR, tag, supplier);
+    }
+
+    public static void e(String tag, String format, Object... args) {
+        log(LogLevel.ERROR, tag, format, args);
+    }
+
+    public static void e(String tag, String format, int arg) {
+        log(LogLevel.ERROR, tag, format, arg);
+    }
+
+    public static void e(String tag, String format, long arg) {
+        log(LogLevel.ERROR, tag, format, arg);
+    }
+
+    public static void e(String tag, String format, double arg) {
+        log(LogLevel.ERROR, tag, format, arg);
+    }
+
+    public static void e(String tag, String format, char arg) {
+        log(LogLevel.ERROR, tag, format, arg);
     }
 
     //WTF（What a Terrible Failure） Log.e()（错误）更加严重，甚至可以看作是极端的错误情况。
@@ -123,7 +483,18 @@ public class XLogger {
     }
 
     public static void wtf(String message, Throwable tr) {
-        log(LogLevel.ERROR, null, buildTrMessage(message, tr));
+        logThrowable(LogLevel.ERROR, null, message, tr);
+    }
+
+    public static void wtf(String tag, String message, Throwable tr) {
+        logThrowable(LogLevel.ERROR, tag, message, tr);
+    }
+
+    private static void logThrowable(int level, String tag, String msg, Throwable tr) {
+        // Format the stack trace only when the line will actually be logged
+        if (isLoggable(tag, level)) {
+            dispatch(level, tag, buildTrMessage(msg, tr), tr);
+        }
     }
 
     /**
@@ -132,7 +503,7 @@ public class XLogger {
      * @param tr
      * @return
      */
-    private static String buildTrMessage(String msg, Throwable tr) {
+    static String buildTrMessage(String msg, Throwable tr) {
         StringBuilder formattedMessage = new StringBuilder();
 
         // 添加日志消息内容
@@ -142,18 +513,20 @@ public class XLogger {
 
         // 如果有 Throwable 对象，格式化它
         if (tr != null) {
-            formattedMessage.append(new ThrowableLogFormatter().formatMessage(tr));
+            formattedMessage.append(throwableFormatter.formatMessage(tr));
         }
 
         return formattedMessage.toString();
     }
 
 
-    // Methods for logging JSON formatted logs (formatting done locally)
+    // Methods for logging JSON formatted logs
     public static void logJson(int level, String jsonMessage) {
-        assertInitialization();
+        // Skip formatting entirely when the line would be filtered out
+        if (!isLoggable(null, level)) {
+            return;
+        }
 
-        JsonLogFormatter jsonFormatter = new JsonLogFormatter();  // Create JSON formatter locally
         String formattedMessage = jsonFormatter.formatMessage(jsonMessage);
 
         log(level, null, formattedMessage);  // Log the formatted message
@@ -167,11 +540,13 @@ public class XLogger {
         logJson(LogLevel.ERROR, jsonMessage);
     }
 
-    // Methods for logging XML formatted logs (formatting done locally)
+    // Methods for logging XML formatted logs
     public static void logXml(int level, String xmlMessage) {
-        assertInitialization();
+        // Skip formatting entirely when the line would be filtered out
+        if (!isLoggable(null, level)) {
+            return;
+        }
 
-        LogFormatter xmlFormatter = new XmlLogFormatter();  // Create XML formatter locally
         String formattedMessage = xmlFormatter.formatMessage(xmlMessage);
 
         log(level, null, formattedMessage);  // Log the formatted message
@@ -185,7 +560,43 @@ public class XLogger {
         logXml(LogLevel.ERROR, xmlMessage);
     }
 
-    private static void assertInitialization() {
+    /**
+     * Whether a message at this level could be dispatched for some tag. Cheap enough to guard
+     * expensive message construction; a filtered level costs one compare once logging is initialized.
+     * Use {@link #isLoggable(String, int)} when tag overrides matter.
+     */
+    public static boolean isLoggable(int level) {
+        int threshold = levelThreshold;
+        if (level < threshold) {
+            return false;
+        }
+        return threshold != THRESHOLD_UNINITIALIZED || isLoggableSlow(level);
+    }
+
+    /**
+     * Whether a message with this tag and level would be dispatched, honouring
+     * {@link #setTagLogLevel(String, int)}; a null tag stands for the configured default tag.
+     */
+    public static boolean isLoggable(String tag, int level) {
+        if (!isLoggable(level)) {
+            return false;
+        }
+        Map<String, Integer> levels = tagLevels;
+        Integer tagLevel = levels.isEmpty() ? null : levels.get(tag != null ? tag : config.getTag());
+        return level >= (tagLevel != null ? tagLevel : globalThreshold);
+    }
+
+    public static boolean isDebugEnabled() {
+        return isLoggable(LogLevel.DEBUG);
+    }
+
+    // Kept out of isLoggable so the fast path stays small enough to inline
+    private static boolean isLoggableSlow(int level) {
+        assertInitialization();
+        return level >= levelThreshold;
+    }
+
+    private static synchronized void assertInitialization() {
         if (!sIsInitialized) {
             init(); // Default initialization
         }
@@ -195,21 +606,22 @@ public class XLogger {
         return config.isStackTraceEnabled() ? computeTag() : config.getTag();
     }
 
-    private static String computeTag() {
-        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-        for (StackTraceElement element : stackTrace) {
-            if (!element.isNativeMethod() &&
-                    !Thread.class.getName().equals(element.getClassName()) &&
-                    !XLogger.class.getName().equals(element.getClassName())) {
-                return element.getFileName() + ":" + element.getLineNumber();
-            }
-        }
-        return config.getTag();
+    static String computeTag() {
+        return CallerTagResolver.resolve(config.getStackTraceSampleRate(), config.getTag());
+    }
+
+    /**
+     * Number of file log lines dropped because the async buffer was full.
+     * Only reads the count; never starts file logging as a side effect.
+     */
+    public static long getDroppedLogCount() {
+        LogFileManager manager = LogFileManager.peekInstance();
+        return manager != null ? manager.getDroppedLogCount() : 0L;
     }
 
     // Allow setting custom LogPrinter
     public static void setLogPrinter(LogPrinter printer) {
-        logPrinter = printer;
+        consoleSink.setPrinter(printer);
     }
 }
 
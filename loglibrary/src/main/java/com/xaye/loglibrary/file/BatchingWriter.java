@@ -0,0 +1,111 @@
+package com.xaye.loglibrary.file;
+
+import com.xaye.loglibrary.utils.LogLevel;
+
+import java.io.File;
+
+/**
+ * 批量刷盘的日志写入器：
+ * 累计条数达到 batchSize、累计字符数达到 bytesThreshold、或距上次刷盘超过 intervalMillis（大于 0 时），
+ * 三者任一满足即刷盘；ERROR 及以上级别的日志和关闭文件时总是立即刷盘。
+ * 用少量的持久性换取更少的写系统调用。
+ */
+public class BatchingWriter extends SimpleWriter {
+    private final int batchSize;
+    private final int bytesThreshold;
+    private final long intervalMillis;
+
+    private int pendingLines;
+    private int pendingBytes;
+    private long lastFlushTime;
+
+    /**
+     * @param batchSize      累计多少条日志刷盘一次
+     * @param bytesThreshold 累计多少字符刷盘一次（按字符数近似字节数）
+     * @param intervalMillis 距上次刷盘的最长时间间隔（毫秒），0 表示不按时间刷盘
+     */
+    public BatchingWriter(int batchSize, int bytesThreshold, long intervalMillis) {
+        this(batchSize, bytesThreshold, intervalMillis, false);
+    }
+
+    /**
+     * @param garbageFree 是否直接编码进可复用的字节缓冲区，见 {@link SimpleWriter#SimpleWriter(boolean)}
+     */
+    public BatchingWriter(int batchSize, int bytesThreshold, long intervalMillis, boolean garbageFree) {
+        super(garbageFree);
+        this.batchSize = Math.max(1, batchSize);
+        this.bytesThreshold = Math.max(1, bytesThreshold);
+        this.intervalMillis = intervalMillis;
+    }
+
+    @Override
+    public synchronized boolean open(File file) {
+        pendingLines = 0;
+        pendingBytes = 0;
+        lastFlushTime = System.currentTimeMillis();
+        return super.open(file);
+    }
+
+    @Override
+    protected int getBufferSize() {
+        // 缓冲区要装得下一整批，否则 BufferedWriter 会在阈值之前自行写盘
+        return Math.max(super.getBufferSize(), bytesThreshold);
+    }
+
+    @Override
+    public void appendLog(String log) {
+        appendLog(LogLevel.INFO, log);
+    }
+
+    @Override
+    public synchronized void appendLog(int level, String log) {
+        writeLine(log);
+        onLineWritten(level, log.length());
+    }
+
+    @Override
+    public synchronized void appendLog(int level, char[] buffer, int offset, int length) {
+        writeLine(buffer, offset, length);
+        onLineWritten(level, length);
+    }
+
+    private void onLineWritten(int level, int length) {
+        pendingLines++;
+        pendingBytes += length + 1;
+
+        if (level >= LogLevel.ERROR
+                || pendingLines >= batchSize
+                || pendingBytes >= bytesThreshold
+                || isIntervalElapsed()) {
+            flush();
+        }
+    }
+
+    private boolean isIntervalElapsed() {
+        return intervalMillis > 0 && System.currentTimeMillis() - lastFlushTime >= intervalMillis;
+    }
+
+    /**
+     * 距上次刷盘已超过时间间隔且有未刷盘的日志时刷盘，供后台定时任务调用
+     */
+    @Override
+    public synchronized void flushIfDue() {
+        if (pendingLines > 0 && isIntervalElapsed()) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        super.flush();
+        pendingLines = 0;
+        pendingBytes = 0;
+        lastFlushTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public synchronized boolean close() {
+        flush();
+        return super.close();
+    }
+}
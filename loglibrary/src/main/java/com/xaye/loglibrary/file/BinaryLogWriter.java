@@ -0,0 +1,278 @@
+package com.xaye.loglibrary.file;
+
+import com.xaye.loglibrary.utils.LogLevel;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 二进制格式（.xlog）的日志写入器，文件可用 {@link XlogDecoder} 还原为文本：
+ * <pre>
+ * 文件头：  "XLOG" 版本号(1 字节)
+ * 会话记录：0x01                                   每次打开文件、标签表写满时写入，重置时间基准和标签表
+ * 标签记录：0x02 标签ID(varint) 长度(varint) UTF-8
+ * 日志记录：0x03 时间差(zigzag varint) 级别(1 字节) 标签ID(varint，0 表示无标签) 长度(varint) UTF-8
+ * </pre>
+ * 时间戳只记录与上一条的毫秒差（通常 1~2 字节），标签只在首次出现时写一次名称，
+ * 相比每行带 "MM-dd HH:mm:ss.SSS" 前缀的文本格式，写入量和文件大小都小得多。
+ * 记录先写入内存缓冲区，缓冲区写满、ERROR 及以上级别的日志、flush 和关闭时写入文件，
+ * 进程被杀时可能丢失缓冲区中的日志，解码时会忽略末尾不完整的记录。
+ */
+public class BinaryLogWriter extends Writer {
+    public static final String FILE_EXTENSION = ".xlog";
+
+    static final byte[] MAGIC = {'X', 'L', 'O', 'G'};
+    static final int VERSION = 1;
+    static final int RECORD_SESSION = 0x01;
+    static final int RECORD_TAG = 0x02;
+    static final int RECORD_LOG = 0x03;
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MIN_BUFFER_SIZE = 4 * 1024;
+    static final int MAX_TAGS = 4096;
+    // 日志记录除消息外最多占用的字节数：类型 + 时间差 + 级别 + 标签ID + 长度
+    private static final int MAX_RECORD_OVERHEAD = 1 + 10 + 1 + 5 + 5;
+
+    private final Map<String, Integer> tagIds = new HashMap<>();
+    private final int bufferSize;
+    private byte[] buffer;
+    private int position;
+    private long lastTimeMillis;
+
+    private String logFileName;
+    private File logFile;
+    private FileOutputStream outputStream;
+
+    public BinaryLogWriter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize 缓冲区大小，累计这么多字节写入一次文件
+     */
+    public BinaryLogWriter(int bufferSize) {
+        this.bufferSize = Math.max(MIN_BUFFER_SIZE, bufferSize);
+    }
+
+    @Override
+    public boolean open(File file) {
+        logFileName = file.getName();
+        logFile = file;
+        buffer = new byte[bufferSize];
+        position = 0;
+
+        try {
+            File parent = logFile.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            boolean isNewFile = logFile.length() == 0;
+            outputStream = new FileOutputStream(logFile, true);
+            if (isNewFile) {
+                System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+                position = MAGIC.length;
+                buffer[position++] = VERSION;
+            }
+            startSession();
+            writeBuffer();
+        } catch (Exception e) {
+            e.printStackTrace();
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isOpened() {
+        return outputStream != null;
+    }
+
+    @Override
+    public File getOpenedFile() {
+        return logFile;
+    }
+
+    @Override
+    public String getOpenedFileName() {
+        return logFileName;
+    }
+
+    @Override
+    public void appendLog(String log) {
+        appendRecord(System.currentTimeMillis(), LogLevel.INFO, null, log);
+    }
+
+    @Override
+    public void appendLog(int level, String log) {
+        appendRecord(System.currentTimeMillis(), level, null, log);
+    }
+
+    @Override
+    public void appendRecord(long timeMillis, int level, String tag, String message) {
+        if (outputStream == null) {
+            return;
+        }
+        // 与文本格式一致，null 写成 "null"
+        message = String.valueOf(message);
+        try {
+            int tagId = internTag(tag);
+            int messageBytes = utf8Length(message);
+            ensureCapacity(MAX_RECORD_OVERHEAD + messageBytes);
+
+            buffer[position++] = RECORD_LOG;
+            long delta = timeMillis - lastTimeMillis;
+            putVarLong((delta << 1) ^ (delta >> 63)); // zigzag：时钟回拨时差值为负
+            lastTimeMillis = timeMillis;
+            buffer[position++] = (byte) level;
+            putVarLong(tagId);
+            putVarLong(messageBytes);
+            putUtf8(message);
+
+            if (level >= LogLevel.ERROR) {
+                writeBuffer();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 返回标签ID，首次出现的标签先写入标签记录
+     */
+    private int internTag(String tag) throws IOException {
+        if (tag == null) {
+            return 0;
+        }
+        Integer id = tagIds.get(tag);
+        if (id != null) {
+            return id;
+        }
+        if (tagIds.size() >= MAX_TAGS) {
+            // 标签表写满时开启新会话，避免动态拼接的标签让内存无限增长
+            ensureCapacity(1);
+            startSession();
+        }
+        id = tagIds.size() + 1;
+        tagIds.put(tag, id);
+
+        int tagBytes = utf8Length(tag);
+        ensureCapacity(1 + 5 + 5 + tagBytes);
+        buffer[position++] = RECORD_TAG;
+        putVarLong(id);
+        putVarLong(tagBytes);
+        putUtf8(tag);
+        return id;
+    }
+
+    private void startSession() {
+        buffer[position++] = RECORD_SESSION;
+        tagIds.clear();
+        lastTimeMillis = 0;
+    }
+
+    private void ensureCapacity(int size) throws IOException {
+        if (buffer.length - position < size) {
+            writeBuffer();
+            if (buffer.length < size) {
+                // 超长的单条日志，临时扩大缓冲区
+                buffer = new byte[size];
+            }
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        if (position > 0) {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+        if (buffer.length > bufferSize) {
+            buffer = new byte[bufferSize];
+        }
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void putUtf8(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?'; // 不成对的代理字符
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    bytes += 2; // 两个字符共 4 字节
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            } else if (c >= 0x80) {
+                bytes += 1;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void flush() {
+        if (outputStream != null) {
+            try {
+                writeBuffer();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public boolean close() {
+        if (outputStream != null) {
+            try {
+                writeBuffer();
+                outputStream.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+                return false;
+            } finally {
+                outputStream = null;
+                buffer = null;
+                logFileName = null;
+                logFile = null;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,253 @@
+package com.xaye.loglibrary.file;
+
+import com.xaye.loglibrary.utils.LogLevel;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 边写边压缩的日志写入器，输出 yyyy-MM-dd.log.gz：
+ * 日志先累积在内存中，每次刷盘把这一批压缩成一个完整的 gzip 成员追加到文件末尾。
+ * 多个 gzip 成员首尾相接仍是合法的 gzip 文件，可直接用 zcat/gunzip 或 GZIPInputStream 读取；
+ * 每个成员都是一次完整写入，进程被杀只会丢失尚未刷盘的这一批，已写入的部分始终可读。
+ * 刷盘条件与 {@link BatchingWriter} 相同；不再需要跨天后重新读取整个文件压缩成 zip。
+ */
+public class GzipWriter extends Writer {
+    public static final String FILE_EXTENSION = ".log.gz";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MIN_BUFFER_SIZE = 4 * 1024;
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final int batchSize;
+    private final int bytesThreshold;
+    private final long intervalMillis;
+    private final int compressionLevel;
+
+    private final CharsetEncoder encoder = UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CRC32 crc = new CRC32();
+    private Deflater deflater;
+    private char[] wrappedArray;
+    private CharBuffer wrappedChars; // 复用对调用方字符数组的包装，避免每行创建 CharBuffer
+
+    private ByteBuffer pending; // 尚未压缩的日志
+    private byte[] output; // 压缩后的 gzip 成员
+    private int pendingLines;
+    private long lastFlushTime;
+
+    private String logFileName;
+    private File logFile;
+    private FileOutputStream outputStream;
+
+    /**
+     * @param batchSize        累计多少条日志压缩写入一次
+     * @param bytesThreshold   累计多少字节（压缩前）压缩写入一次，越大压缩率越高
+     * @param intervalMillis   距上次写入的最长时间间隔（毫秒），0 表示不按时间写入
+     * @param compressionLevel 压缩级别，取值同 {@link Deflater}
+     */
+    public GzipWriter(int batchSize, int bytesThreshold, long intervalMillis, int compressionLevel) {
+        this.batchSize = Math.max(1, batchSize);
+        this.bytesThreshold = Math.max(MIN_BUFFER_SIZE, bytesThreshold);
+        this.intervalMillis = intervalMillis;
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public synchronized boolean open(File file) {
+        logFileName = file.getName();
+        logFile = file;
+        pending = ByteBuffer.allocate(bytesThreshold + MIN_BUFFER_SIZE);
+        output = new byte[MIN_BUFFER_SIZE];
+        pendingLines = 0;
+        lastFlushTime = System.currentTimeMillis();
+
+        try {
+            File parent = logFile.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            deflater = new Deflater(compressionLevel, true);
+            outputStream = new FileOutputStream(logFile, true);
+        } catch (Exception e) {
+            e.printStackTrace();
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isOpened() {
+        return outputStream != null;
+    }
+
+    @Override
+    public File getOpenedFile() {
+        return logFile;
+    }
+
+    @Override
+    public String getOpenedFileName() {
+        return logFileName;
+    }
+
+    @Override
+    public void appendLog(String log) {
+        appendLog(LogLevel.INFO, log);
+    }
+
+    @Override
+    public synchronized void appendLog(int level, String log) {
+        char[] chars = log.toCharArray();
+        appendLog(level, chars, 0, chars.length);
+    }
+
+    @Override
+    public synchronized void appendLog(int level, char[] buffer, int offset, int length) {
+        if (outputStream == null) {
+            return;
+        }
+        if (buffer != wrappedArray) {
+            wrappedArray = buffer;
+            wrappedChars = CharBuffer.wrap(buffer);
+        }
+        wrappedChars.limit(offset + length).position(offset);
+
+        encoder.reset();
+        for (; ; ) {
+            CoderResult result = encoder.encode(wrappedChars, pending, true);
+            if (!result.isOverflow()) {
+                break;
+            }
+            growPending(length * 3 + 1);
+        }
+        while (encoder.flush(pending).isOverflow()) {
+            growPending(length * 3 + 1);
+        }
+        if (!pending.hasRemaining()) {
+            growPending(1);
+        }
+        pending.put((byte) '\n');
+        pendingLines++;
+
+        if (level >= LogLevel.ERROR
+                || pendingLines >= batchSize
+                || pending.position() >= bytesThreshold
+                || isIntervalElapsed()) {
+            flush();
+        }
+    }
+
+    private boolean isIntervalElapsed() {
+        return intervalMillis > 0 && System.currentTimeMillis() - lastFlushTime >= intervalMillis;
+    }
+
+    private void growPending(int minExtra) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() << 1, pending.position() + minExtra));
+        pending.flip();
+        grown.put(pending);
+        pending = grown;
+    }
+
+    /**
+     * 把累积的日志压缩成一个 gzip 成员追加到文件
+     */
+    @Override
+    public synchronized void flush() {
+        lastFlushTime = System.currentTimeMillis();
+        if (outputStream == null || pending.position() == 0) {
+            return;
+        }
+        byte[] input = pending.array();
+        int inputLength = pending.position();
+
+        crc.reset();
+        crc.update(input, 0, inputLength);
+        deflater.reset();
+        deflater.setInput(input, 0, inputLength);
+        deflater.finish();
+
+        System.arraycopy(GZIP_HEADER, 0, output, 0, GZIP_HEADER.length);
+        int length = GZIP_HEADER.length;
+        while (!deflater.finished()) {
+            if (length == output.length) {
+                byte[] grown = new byte[output.length << 1];
+                System.arraycopy(output, 0, grown, 0, length);
+                output = grown;
+            }
+            length += deflater.deflate(output, length, output.length - length);
+        }
+        if (output.length - length < 8) {
+            byte[] grown = new byte[length + 8];
+            System.arraycopy(output, 0, grown, 0, length);
+            output = grown;
+        }
+        length = writeIntLE(output, length, (int) crc.getValue());
+        length = writeIntLE(output, length, inputLength);
+
+        try {
+            // 整个成员一次写入，文件中不会出现写了一半的成员（掉电除外）
+            outputStream.write(output, 0, length);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        if (pending.capacity() > bytesThreshold + MIN_BUFFER_SIZE) {
+            // 超长日志临时扩大的缓冲区不再保留
+            pending = ByteBuffer.allocate(bytesThreshold + MIN_BUFFER_SIZE);
+        } else {
+            pending.clear();
+        }
+        pendingLines = 0;
+    }
+
+    private static int writeIntLE(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >>> 8);
+        buffer[offset + 2] = (byte) (value >>> 16);
+        buffer[offset + 3] = (byte) (value >>> 24);
+        return offset + 4;
+    }
+
+    /**
+     * 距上次写入已超过时间间隔且有未写入的日志时写入，供后台定时任务调用
+     */
+    @Override
+    public synchronized void flushIfDue() {
+        if (pendingLines > 0 && isIntervalElapsed()) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized boolean close() {
+        if (outputStream != null) {
+            flush();
+            try {
+                outputStream.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        if (deflater != null) {
+            deflater.end();
+        }
+        outputStream = null;
+        deflater = null;
+        logFileName = null;
+        logFile = null;
+        return true;
+    }
+}
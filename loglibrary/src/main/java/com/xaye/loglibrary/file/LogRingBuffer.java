@@ -0,0 +1,151 @@
+package com.xaye.loglibrary.file;
+
+import com.xaye.loglibrary.LogRecord;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界无锁环形缓冲区（多生产者/多消费者）。
+ * 每个槽位带一个序号，生产者和消费者只通过 CAS 推进各自的游标，不使用任何锁；
+ * 槽位的字段预先分配，入队/出队过程中不产生额外对象。
+ */
+public final class LogRingBuffer {
+
+    /**
+     * 出队时接收日志内容的回调
+     */
+    public interface EntryHandler {
+        /**
+         * @param record 处理完即被回收，不能持有
+         */
+        void onEntry(LogRecord record);
+    }
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final long[] times;
+    private final int[] levels;
+    private final String[] tags;
+    private final String[] messages;
+    private final Throwable[] throwables;
+    private final long[] threadIds;
+    private final String[] threadNames;
+
+    private final AtomicLong head = new AtomicLong(); // 消费者游标
+    private final AtomicLong tail = new AtomicLong(); // 生产者游标
+
+    /**
+     * @param capacity 缓冲区容量，会向上取整为 2 的幂
+     */
+    public LogRingBuffer(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.times = new long[size];
+        this.levels = new int[size];
+        this.tags = new String[size];
+        this.messages = new String[size];
+        this.throwables = new Throwable[size];
+        this.threadIds = new long[size];
+        this.threadNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 入队一条日志
+     *
+     * @return 缓冲区已满时返回 false
+     */
+    public boolean offer(LogRecord record) {
+        long pos = tail.get();
+        for (; ; ) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    // 复制字段，调用方随后会回收 record
+                    times[index] = record.getTimeMillis();
+                    levels[index] = record.getLevel();
+                    tags[index] = record.getTag();
+                    messages[index] = record.getMessage();
+                    throwables[index] = record.getThrowable();
+                    threadIds[index] = record.getThreadId();
+                    threadNames[index] = record.getThreadName();
+                    // 发布槽位，保证消费者读到序号时字段已写入
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 出队一条日志
+     *
+     * @param handler 接收日志内容，传 null 表示直接丢弃
+     * @return 缓冲区为空时返回 false
+     */
+    public boolean poll(EntryHandler handler) {
+        long pos = head.get();
+        for (; ; ) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    long timeMillis = times[index];
+                    int level = levels[index];
+                    String tag = tags[index];
+                    String message = messages[index];
+                    Throwable throwable = throwables[index];
+                    long threadId = threadIds[index];
+                    String threadName = threadNames[index];
+                    tags[index] = null;
+                    messages[index] = null;
+                    throwables[index] = null;
+                    threadNames[index] = null;
+                    // 释放槽位给下一轮的生产者
+                    sequences.lazySet(index, pos + mask + 1);
+                    if (handler != null) {
+                        // 消费线程上复用缓存的记录，不产生额外对象
+                        LogRecord record = LogRecord.obtain(timeMillis, level, tag, message, throwable, threadId, threadName);
+                        try {
+                            handler.onEntry(record);
+                        } finally {
+                            record.recycle();
+                        }
+                    }
+                    return true;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return size < 0 ? 0 : (int) size;
+    }
+}
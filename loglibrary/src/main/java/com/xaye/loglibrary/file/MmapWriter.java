@@ -0,0 +1,249 @@
+package com.xaye.loglibrary.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * 基于内存映射（mmap）的日志写入器：
+ * 日志直接写进映射到当天日志文件上的 MappedByteBuffer，写满一块再映射下一块；
+ * 映射页由系统内核负责回写，进程被杀也不会丢失已写入的日志。
+ * 映射区尚未写入的部分是 0 字节，关闭时截掉；若进程被杀未能截断，下次打开时先找回真实末尾再截断。
+ */
+public class MmapWriter extends Writer {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private final int chunkSize;
+    private final CharsetEncoder encoder = UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private char[] wrappedArray;
+    private CharBuffer wrappedChars; // 复用对调用方字符数组的包装，避免每行创建 CharBuffer
+
+    private String logFileName;
+    private File logFile;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private MappedByteBuffer mappedBuffer;
+    private long mappedStart; // 当前映射区在文件中的起始位置
+
+    public MmapWriter() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize 每次映射（文件增长）的字节数
+     */
+    public MmapWriter(int chunkSize) {
+        this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+    }
+
+    @Override
+    public boolean open(File file) {
+        logFileName = file.getName();
+        logFile = file;
+
+        try {
+            File parent = logFile.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            randomAccessFile = new RandomAccessFile(logFile, "rw");
+            channel = randomAccessFile.getChannel();
+
+            // 上次未正常关闭时，文件末尾会残留映射出来但没写入的 0 字节
+            long end = findWrittenEnd(channel);
+            if (end < channel.size()) {
+                channel.truncate(end);
+            }
+            map(end, chunkSize);
+        } catch (Exception e) {
+            e.printStackTrace();
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    private void map(long position, int size) throws IOException {
+        mappedStart = position;
+        mappedBuffer = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+    }
+
+    @Override
+    public boolean isOpened() {
+        // 每条日志都会调用，不再检查文件是否存在，避免逐行 stat
+        return mappedBuffer != null;
+    }
+
+    @Override
+    public File getOpenedFile() {
+        return logFile;
+    }
+
+    @Override
+    public String getOpenedFileName() {
+        return logFileName;
+    }
+
+    @Override
+    public void appendLog(String log) {
+        if (mappedBuffer == null) {
+            return;
+        }
+        byte[] bytes = (log + "\n").getBytes(UTF_8);
+        try {
+            if (mappedBuffer.remaining() < bytes.length) {
+                // 当前块写满，从已写入的末尾开始映射下一块
+                remapFromWrittenEnd(bytes.length);
+            }
+            mappedBuffer.put(bytes);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void appendLog(int level, char[] buffer, int offset, int length) {
+        if (mappedBuffer == null) {
+            return;
+        }
+        if (buffer != wrappedArray) {
+            wrappedArray = buffer;
+            wrappedChars = CharBuffer.wrap(buffer);
+        }
+        wrappedChars.limit(offset + length).position(offset);
+        try {
+            // 直接编码进映射区，映射区放不下时映射下一块后继续
+            encoder.reset();
+            for (; ; ) {
+                CoderResult result = encoder.encode(wrappedChars, mappedBuffer, true);
+                if (result.isOverflow()) {
+                    remapFromWrittenEnd(length * 3 + 1);
+                } else {
+                    break;
+                }
+            }
+            while (encoder.flush(mappedBuffer).isOverflow()) {
+                remapFromWrittenEnd(length * 3 + 1);
+            }
+            if (!mappedBuffer.hasRemaining()) {
+                remapFromWrittenEnd(1);
+            }
+            mappedBuffer.put((byte) '\n');
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 映射区会提前把文件扩大一块，文件大小不等于已写入的字节数
+     */
+    @Override
+    public long length() {
+        return mappedBuffer != null ? mappedStart + mappedBuffer.position() : 0L;
+    }
+
+    /**
+     * 映射下一块之前先把当前块同步到存储设备，之后不再引用它。
+     * Java 和 Android 都没有公开的 unmap 接口，旧映射要等 MappedByteBuffer 被 GC 回收时才解除；
+     * 已经同步过的页是干净页，在此之前内核随时可以回收，不会堆积待回写的数据。
+     */
+    private void remapFromWrittenEnd(int minSize) throws IOException {
+        MappedByteBuffer previous = mappedBuffer;
+        long position = mappedStart + previous.position();
+        previous.force();
+        mappedBuffer = null;
+        map(position, Math.max(chunkSize, minSize));
+    }
+
+    /**
+     * 把映射页同步到存储设备，进程被杀不需要这一步，只在系统掉电时有意义
+     */
+    @Override
+    public void flush() {
+        if (mappedBuffer != null) {
+            mappedBuffer.force();
+        }
+    }
+
+    @Override
+    public boolean close() {
+        if (channel != null) {
+            try {
+                if (mappedBuffer != null) {
+                    mappedBuffer.force();
+                    // 截掉映射出来但没写入的部分
+                    channel.truncate(mappedStart + mappedBuffer.position());
+                }
+                channel.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        if (randomAccessFile != null) {
+            try {
+                randomAccessFile.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        mappedBuffer = null;
+        channel = null;
+        randomAccessFile = null;
+        logFileName = null;
+        logFile = null;
+        return true;
+    }
+
+    /**
+     * 截掉异常退出后残留在日志文件末尾的未写入区域，用于不再打开写入的历史文件
+     */
+    public static void trimUnwrittenTail(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            FileChannel fileChannel = raf.getChannel();
+            long end = findWrittenEnd(fileChannel);
+            if (end < fileChannel.size()) {
+                fileChannel.truncate(end);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 从文件末尾向前找到最后一个非 0 字节，文本日志本身不会包含 0 字节
+     */
+    private static long findWrittenEnd(FileChannel fileChannel) throws IOException {
+        long end = fileChannel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        while (end > 0) {
+            int length = (int) Math.min(SCAN_BUFFER_SIZE, end);
+            long start = end - length;
+            buffer.clear();
+            buffer.limit(length);
+            while (buffer.hasRemaining()) {
+                if (fileChannel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) != 0) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+}
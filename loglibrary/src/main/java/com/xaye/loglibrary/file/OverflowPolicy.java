@@ -0,0 +1,22 @@
+package com.xaye.loglibrary.file;
+
+/**
+ * 异步写日志时环形缓冲区写满后的处理策略
+ */
+public class OverflowPolicy {
+
+    /**
+     * 阻塞调用线程，直到写线程腾出空间（不丢日志）
+     */
+    public static final int BLOCK = 0;
+
+    /**
+     * 丢弃缓冲区中最旧的一条日志，为新日志腾出空间
+     */
+    public static final int DROP_OLDEST = 1;
+
+    /**
+     * 丢弃当前这条新日志，并累加丢弃计数
+     */
+    public static final int DROP_NEWEST = 2;
+}
@@ -2,7 +2,14 @@ package com.xaye.loglibrary.file;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 
 /**
  * Author xaye
@@ -10,12 +17,41 @@ import java.io.FileWriter;
  * @date: 2024/11/4
  */
 public class SimpleWriter extends Writer {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     private String logFileName;
 
     private File logFile;
 
     private BufferedWriter bufferedWriter;
 
+    // 免垃圾模式：不经过 BufferedWriter/OutputStreamWriter（每次写出都会包装一个 CharBuffer），
+    // 用复用的编码器直接编码进复用的字节缓冲区，再整块写入文件
+    private final boolean garbageFree;
+    private final CharsetEncoder encoder;
+    private FileOutputStream outputStream;
+    private ByteBuffer byteBuffer;
+    private char[] wrappedArray;
+    private CharBuffer wrappedChars;
+    private char[] stringChars; // appendLog(String) 时复制字符用
+
+    public SimpleWriter() {
+        this(false);
+    }
+
+    /**
+     * @param garbageFree 是否直接编码进可复用的字节缓冲区，写日志时不创建任何对象
+     */
+    public SimpleWriter(boolean garbageFree) {
+        this.garbageFree = garbageFree;
+        this.encoder = garbageFree
+                ? UTF_8.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                : null;
+    }
+
     @Override
     public boolean open(File file) {
         logFileName = file.getName();
@@ -40,7 +76,12 @@ public class SimpleWriter extends Writer {
         }
 
         try {
-            bufferedWriter = new BufferedWriter(new FileWriter(logFile, true));
+            if (garbageFree) {
+                outputStream = new FileOutputStream(logFile, true);
+                byteBuffer = ByteBuffer.allocate(getBufferSize());
+            } else {
+                bufferedWriter = new BufferedWriter(new FileWriter(logFile, true), getBufferSize());
+            }
             if (isNewFile) {
                 onNewFileCreated(logFile);
             }
@@ -54,7 +95,8 @@ public class SimpleWriter extends Writer {
 
     @Override
     public boolean isOpened() {
-        return bufferedWriter != null && logFile.exists();
+        // 每条日志都会调用，不再检查文件是否存在，避免逐行 stat
+        return bufferedWriter != null || outputStream != null;
     }
 
     @Override
@@ -71,12 +113,100 @@ public class SimpleWriter extends Writer {
     public void onNewFileCreated(File file) {
     }
 
+    /**
+     * 写缓冲区大小（字符数，免垃圾模式下为字节数）
+     */
+    protected int getBufferSize() {
+        return DEFAULT_BUFFER_SIZE;
+    }
+
     @Override
     public void appendLog(String log) {
+        writeLine(log);
+        flush();
+    }
+
+    @Override
+    public void appendLog(int level, char[] buffer, int offset, int length) {
+        writeLine(buffer, offset, length);
+        flush();
+    }
+
+    /**
+     * 只把一行日志写进缓冲区，不刷盘
+     */
+    protected void writeLine(String log) {
+        if (garbageFree) {
+            int length = log.length();
+            if (stringChars == null || stringChars.length < length) {
+                stringChars = new char[Math.max(length, DEFAULT_BUFFER_SIZE / 8)];
+            }
+            log.getChars(0, length, stringChars, 0);
+            writeLine(stringChars, 0, length);
+            return;
+        }
         try {
             bufferedWriter.write(log);
             bufferedWriter.newLine();
-            bufferedWriter.flush();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 只把字符数组中的一行日志写进缓冲区，不刷盘
+     */
+    protected void writeLine(char[] buffer, int offset, int length) {
+        try {
+            if (garbageFree) {
+                encodeLine(buffer, offset, length);
+            } else {
+                bufferedWriter.write(buffer, offset, length);
+                bufferedWriter.newLine();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void encodeLine(char[] buffer, int offset, int length) throws IOException {
+        if (outputStream == null) {
+            return;
+        }
+        if (buffer != wrappedArray) {
+            wrappedArray = buffer;
+            wrappedChars = CharBuffer.wrap(buffer);
+        }
+        wrappedChars.limit(offset + length).position(offset);
+        // 字节缓冲区放不下时先写出已编码的部分，再继续编码
+        encoder.reset();
+        while (encoder.encode(wrappedChars, byteBuffer, true).isOverflow()) {
+            writeBytes();
+        }
+        while (encoder.flush(byteBuffer).isOverflow()) {
+            writeBytes();
+        }
+        if (!byteBuffer.hasRemaining()) {
+            writeBytes();
+        }
+        byteBuffer.put((byte) '\n');
+    }
+
+    private void writeBytes() throws IOException {
+        outputStream.write(byteBuffer.array(), 0, byteBuffer.position());
+        byteBuffer.clear();
+    }
+
+    @Override
+    public void flush() {
+        try {
+            if (outputStream != null) {
+                if (byteBuffer.position() > 0) {
+                    writeBytes();
+                }
+            } else if (bufferedWriter != null) {
+                bufferedWriter.flush();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -84,6 +214,18 @@ public class SimpleWriter extends Writer {
 
     @Override
     public boolean close() {
+        if (outputStream != null) {
+            flush();
+            try {
+                outputStream.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        outputStream = null;
+        byteBuffer = null;
+        wrappedArray = null;
+        wrappedChars = null;
         if (bufferedWriter != null) {
             try {
                 bufferedWriter.close();
@@ -1,5 +1,7 @@
 package com.xaye.loglibrary.file;
 
+import com.xaye.loglibrary.utils.LogLineBuffer;
+
 import java.io.File;
 
 /**
@@ -8,6 +10,8 @@ import java.io.File;
  * @date: 2024/11/4
  */
 public abstract class Writer {
+    private LogLineBuffer lineBuffer;
+
     public abstract boolean open(File file);
 
     public abstract boolean isOpened();
@@ -18,5 +22,54 @@ public abstract class Writer {
 
     public abstract void appendLog(String log);
 
+    /**
+     * 追加一条带级别的日志，默认忽略级别，子类可据此决定刷盘时机
+     */
+    public void appendLog(int level, String log) {
+        appendLog(log);
+    }
+
+    /**
+     * 追加字符数组中的一行日志，调用方会复用该数组，实现类不能持有它；
+     * 默认转成字符串，子类可直接写入以避免每行创建字符串
+     */
+    public void appendLog(int level, char[] buffer, int offset, int length) {
+        appendLog(level, new String(buffer, offset, length));
+    }
+
+    /**
+     * 追加一条日志记录，默认编码成 "时间戳 级别/tag: 消息" 文本行后写入，与 XlogDecoder 的输出格式一致；
+     * 二进制格式等子类可直接写入各个字段
+     */
+    public void appendRecord(long timeMillis, int level, String tag, String message) {
+        if (lineBuffer == null) {
+            lineBuffer = new LogLineBuffer();
+        }
+        lineBuffer.encode(timeMillis, level, tag, message);
+        appendLog(level, lineBuffer.getBuffer(), 0, lineBuffer.length());
+    }
+
+    /**
+     * 把缓冲中的日志刷到磁盘
+     */
+    public void flush() {
+    }
+
+    /**
+     * 供后台定时任务调用，把长时间没有新日志的缓冲刷到磁盘；默认直接刷盘，
+     * 按条件批量刷盘的子类只在距上次刷盘超过时间间隔时刷盘
+     */
+    public void flushIfDue() {
+        flush();
+    }
+
+    /**
+     * 当前文件已写入的字节数，用于按大小切换分段；默认取文件大小，缓冲中尚未落盘的部分不计入
+     */
+    public long length() {
+        File file = getOpenedFile();
+        return file != null ? file.length() : 0L;
+    }
+
     public abstract boolean close();
 }
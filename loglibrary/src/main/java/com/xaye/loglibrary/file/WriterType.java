@@ -0,0 +1,32 @@
+package com.xaye.loglibrary.file;
+
+/**
+ * 日志文件写入器类型，通过 LogConfiguration 选择
+ */
+public class WriterType {
+
+    /**
+     * {@link SimpleWriter}：每行日志立即刷盘
+     */
+    public static final int SIMPLE = 0;
+
+    /**
+     * {@link BatchingWriter}：按条数、字节数或时间间隔批量刷盘
+     */
+    public static final int BATCHING = 1;
+
+    /**
+     * {@link MmapWriter}：内存映射写入，接近内存速度且进程被杀不丢日志
+     */
+    public static final int MMAP = 2;
+
+    /**
+     * {@link BinaryLogWriter}：紧凑的二进制格式（.xlog），用 {@link XlogDecoder} 还原为文本
+     */
+    public static final int BINARY = 3;
+
+    /**
+     * {@link GzipWriter}：边写边压缩为 .log.gz，不再需要跨天后的 zip 压缩
+     */
+    public static final int GZIP = 4;
+}
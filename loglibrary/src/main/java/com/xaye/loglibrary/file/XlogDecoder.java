@@ -0,0 +1,172 @@
+package com.xaye.loglibrary.file;
+
+import com.xaye.loglibrary.utils.LogLevel;
+import com.xaye.loglibrary.utils.TimestampEncoder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把 {@link BinaryLogWriter} 写出的 .xlog 文件还原为文本，每条日志一行：
+ * "MM-dd HH:mm:ss.SSS 级别/标签: 消息"。不依赖 Android，可在电脑上直接运行：
+ * <pre>
+ * java -cp loglibrary.jar com.xaye.loglibrary.file.XlogDecoder 2025-07-23.xlog [2025-07-23.log]
+ * </pre>
+ * 时间按运行解码程序的机器的时区显示。
+ */
+public final class XlogDecoder {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private XlogDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: XlogDecoder <input.xlog> [output.log]");
+            System.exit(1);
+        }
+        String input = args[0];
+        String output = args.length > 1 ? args[1] : stripExtension(input) + ".log";
+        try (InputStream in = new FileInputStream(input);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), UTF_8))) {
+            long count = decode(in, out);
+            System.out.println("Decoded " + count + " records to " + output);
+        }
+    }
+
+    /**
+     * 解码整个 .xlog 流，末尾不完整的记录（进程被杀时写了一半）会被忽略
+     *
+     * @return 解码出的日志条数
+     * @throws IOException 文件头不正确、记录类型未知、标签 ID 或长度越界，或读写失败
+     */
+    public static long decode(InputStream in, Appendable out) throws IOException {
+        InputStream input = in instanceof BufferedInputStream ? in : new BufferedInputStream(in);
+        for (byte expected : BinaryLogWriter.MAGIC) {
+            if (input.read() != expected) {
+                throw new IOException("Not an xlog file");
+            }
+        }
+        int version = input.read();
+        if (version != BinaryLogWriter.VERSION) {
+            throw new IOException("Unsupported xlog version: " + version);
+        }
+
+        List<String> tags = new ArrayList<>();
+        TimestampEncoder timestampEncoder = new TimestampEncoder();
+        char[] timestamp = new char[TimestampEncoder.LENGTH];
+        byte[] bytes = new byte[256];
+        long lastTimeMillis = 0;
+        long count = 0;
+
+        try {
+            for (int type = input.read(); type >= 0; type = input.read()) {
+                switch (type) {
+                    case BinaryLogWriter.RECORD_SESSION:
+                        tags.clear();
+                        lastTimeMillis = 0;
+                        break;
+                    case BinaryLogWriter.RECORD_TAG: {
+                        long id = readVarLong(input);
+                        if (id < 1 || id > BinaryLogWriter.MAX_TAGS) {
+                            throw new IOException("Corrupted xlog tag id: " + id);
+                        }
+                        int length = readLength(input);
+                        bytes = readFully(input, bytes, length);
+                        while (tags.size() < id) {
+                            tags.add(null);
+                        }
+                        tags.set((int) id - 1, new String(bytes, 0, length, UTF_8));
+                        break;
+                    }
+                    case BinaryLogWriter.RECORD_LOG: {
+                        long zigzag = readVarLong(input);
+                        lastTimeMillis += (zigzag >>> 1) ^ -(zigzag & 1);
+                        int level = readByte(input);
+                        long tagId = readVarLong(input);
+                        // 0 表示没有标签，其余必须是本会话中已经出现过的标签
+                        String tag = null;
+                        if (tagId != 0) {
+                            if (tagId < 0 || tagId > tags.size() || tags.get((int) tagId - 1) == null) {
+                                throw new IOException("Corrupted xlog tag id: " + tagId);
+                            }
+                            tag = tags.get((int) tagId - 1);
+                        }
+                        int length = readLength(input);
+                        bytes = readFully(input, bytes, length);
+
+                        timestampEncoder.encode(lastTimeMillis, timestamp, 0);
+                        out.append(new String(timestamp)).append(' ').append(LogLevel.getShortLevelName(level));
+                        if (tag != null) {
+                            out.append('/').append(tag);
+                        }
+                        out.append(": ").append(new String(bytes, 0, length, UTF_8)).append('\n');
+                        count++;
+                        break;
+                    }
+                    default:
+                        throw new IOException("Corrupted xlog record type: " + type);
+                }
+            }
+        } catch (EOFException e) {
+            // 末尾的记录不完整，已解码的部分照常输出
+        }
+        return count;
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int readLength(InputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Corrupted xlog length: " + length);
+        }
+        return (int) length;
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private static byte[] readFully(InputStream in, byte[] buffer, int length) throws IOException {
+        byte[] target = buffer.length >= length ? buffer : new byte[Math.max(length, buffer.length << 1)];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(target, read, length - read);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            read += n;
+        }
+        return target;
+    }
+
+    private static String stripExtension(String path) {
+        return path.endsWith(BinaryLogWriter.FILE_EXTENSION)
+                ? path.substring(0, path.length() - BinaryLogWriter.FILE_EXTENSION.length())
+                : path;
+    }
+}
@@ -0,0 +1,204 @@
+package com.xaye.loglibrary.format;
+
+/**
+ * 流式 JSON 缩进：逐字符扫描一遍，直接写入输出缓冲区，不构建 JSONObject/JSONArray。
+ * 保持原有的 key 顺序和字符串转义；校验括号配对、字符串闭合、值之间的 ',' 和 key 后的 ':'
+ * 以及末尾没有多余内容，不满足时返回 {@link #MALFORMED}，由调用方回退为原始内容，
+ * 数字、true/false/null 等字面量按原文输出，不校验其内容。
+ * 输出达到字节数或行数上限时停止，返回已处理到的原文位置，由调用方追加截断标记。
+ */
+final class JsonIndenter {
+    static final int MALFORMED = -1;
+
+    private static final String SPACES = "                                ";
+
+    // 下一个非空白字符应该是什么
+    private static final int EXPECT_VALUE = 0;
+    private static final int EXPECT_KEY = 1;
+    private static final int EXPECT_COLON = 2;
+    private static final int EXPECT_COMMA_OR_CLOSE = 3;
+
+    private JsonIndenter() {
+    }
+
+    /**
+     * @param json       以 '{' 或 '[' 开头的 JSON 文本
+     * @param out        输出缓冲区，失败时其中可能残留部分内容
+     * @param indentSize 每层缩进的空格数
+     * @param maxBytes   最多输出的 UTF-8 字节数
+     * @param maxLines   最多输出的行数
+     * @return 完整输出时返回 json.length()，达到上限时返回已处理到的原文位置，结构不完整时返回 {@link #MALFORMED}
+     */
+    static int indent(String json, StringBuilder out, int indentSize, int maxBytes, int maxLines) {
+        int length = json.length();
+        int counted = out.length(); // 已计入 bytes 的输出位置，增量统计，整体只扫描一遍输出
+        long bytes = 0;
+        int lines = 1;
+        char[] closers = new char[16]; // 未闭合的括号，深度即占用的长度
+        int depth = 0;
+        boolean started = false;
+        int expect = EXPECT_VALUE;
+
+        for (int i = 0; i < length; i++) {
+            char c = json.charAt(i);
+            if (isWhitespace(c)) {
+                continue;
+            }
+            if (started && depth == 0) {
+                return MALFORMED; // 顶层结构结束后还有内容
+            }
+            bytes += TruncationMarker.utf8Length(out, counted, out.length());
+            counted = out.length();
+            if (bytes >= maxBytes || lines > maxLines) {
+                return i;
+            }
+            switch (c) {
+                case '"': {
+                    if (expect != EXPECT_VALUE && expect != EXPECT_KEY) {
+                        return MALFORMED;
+                    }
+                    expect = expect == EXPECT_KEY ? EXPECT_COLON : EXPECT_COMMA_OR_CLOSE;
+                    int end = findStringEnd(json, i + 1);
+                    if (end < 0) {
+                        return MALFORMED;
+                    }
+                    long room = maxBytes - bytes;
+                    int stop = TruncationMarker.fitUtf8(json, i, end + 1, room);
+                    if (stop <= end) {
+                        // 超长的字符串只输出到上限为止
+                        out.append(json, i, stop);
+                        return stop;
+                    }
+                    out.append(json, i, end + 1);
+                    i = end;
+                    break;
+                }
+                case '{':
+                case '[': {
+                    if (expect != EXPECT_VALUE) {
+                        return MALFORMED;
+                    }
+                    char closer = c == '{' ? '}' : ']';
+                    started = true;
+                    int next = skipWhitespace(json, i + 1);
+                    if (next < length && json.charAt(next) == closer) {
+                        // 空对象/空数组保持在同一行
+                        out.append(c).append(closer);
+                        i = next;
+                        expect = EXPECT_COMMA_OR_CLOSE;
+                        break;
+                    }
+                    expect = c == '{' ? EXPECT_KEY : EXPECT_VALUE;
+                    if (depth == closers.length) {
+                        char[] grown = new char[depth << 1];
+                        System.arraycopy(closers, 0, grown, 0, depth);
+                        closers = grown;
+                    }
+                    closers[depth++] = closer;
+                    out.append(c);
+                    newLine(out, depth * indentSize);
+                    lines++;
+                    break;
+                }
+                case '}':
+                case ']':
+                    // 空对象/空数组已在开括号处处理，这里前面必须是一个值
+                    if (depth == 0 || closers[depth - 1] != c || expect != EXPECT_COMMA_OR_CLOSE) {
+                        return MALFORMED;
+                    }
+                    depth--;
+                    newLine(out, depth * indentSize);
+                    lines++;
+                    out.append(c);
+                    break;
+                case ',':
+                    if (depth == 0 || expect != EXPECT_COMMA_OR_CLOSE) {
+                        return MALFORMED;
+                    }
+                    expect = closers[depth - 1] == '}' ? EXPECT_KEY : EXPECT_VALUE;
+                    out.append(',');
+                    newLine(out, depth * indentSize);
+                    lines++;
+                    break;
+                case ':':
+                    if (expect != EXPECT_COLON) {
+                        return MALFORMED;
+                    }
+                    expect = EXPECT_VALUE;
+                    out.append(": ");
+                    break;
+                default: {
+                    // 字面量：两个值之间缺少 ',' 时（如 "[1 2]"）在这里发现
+                    if (!started || expect != EXPECT_VALUE) {
+                        return MALFORMED;
+                    }
+                    expect = EXPECT_COMMA_OR_CLOSE;
+                    int end = findLiteralEnd(json, i + 1);
+                    int stop = TruncationMarker.fitUtf8(json, i, end, maxBytes - bytes);
+                    out.append(json, i, stop);
+                    if (stop < end) {
+                        return stop;
+                    }
+                    i = end - 1;
+                    break;
+                }
+            }
+        }
+        return started && depth == 0 ? length : MALFORMED;
+    }
+
+    /**
+     * @return 从 start 开始的字符串的结束引号位置，未闭合时返回 -1
+     */
+    private static int findStringEnd(String json, int start) {
+        int length = json.length();
+        for (int i = start; i < length; i++) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 从 start 开始的字面量之后的第一个空白、结构字符或引号的位置
+     */
+    private static int findLiteralEnd(String json, int start) {
+        int length = json.length();
+        int i = start;
+        while (i < length) {
+            char c = json.charAt(i);
+            if (isWhitespace(c) || c == ',' || c == ':' || c == '"'
+                    || c == '{' || c == '}' || c == '[' || c == ']') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(String json, int start) {
+        int length = json.length();
+        int i = start;
+        while (i < length && isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static void newLine(StringBuilder out, int spaces) {
+        out.append('\n');
+        while (spaces > 0) {
+            int count = Math.min(spaces, SPACES.length());
+            out.append(SPACES, 0, count);
+            spaces -= count;
+        }
+    }
+}
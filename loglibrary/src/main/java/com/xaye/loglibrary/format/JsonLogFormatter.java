@@ -2,10 +2,6 @@ package com.xaye.loglibrary.format;
 
 import com.xaye.loglibrary.utils.LoggerUtils;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
 /**
  * Author xaye
  *
@@ -16,6 +12,23 @@ public class JsonLogFormatter implements LogFormatter<String> {
     // 美化输出时使用的缩进空格数
     private static final int JSON_INDENT = 4;
 
+    private final int maxLength;
+    private final int maxLines;
+
+    public JsonLogFormatter() {
+        this(0, 0);
+    }
+
+    /**
+     * 截断模式：输出达到上限后停止格式化，末尾追加 "...truncated N bytes"
+     * @param maxLength 最多输出的 UTF-8 字节数，小于等于 0 表示不限制
+     * @param maxLines  最多输出的行数，小于等于 0 表示不限制
+     */
+    public JsonLogFormatter(int maxLength, int maxLines) {
+        this.maxLength = maxLength > 0 ? maxLength : Integer.MAX_VALUE;
+        this.maxLines = maxLines > 0 ? maxLines : Integer.MAX_VALUE;
+    }
+
     /**
      * 格式化 JSON 消息
      * @param message 要格式化的消息（JSON 字符串）
@@ -32,11 +45,9 @@ public class JsonLogFormatter implements LogFormatter<String> {
         // 去除字符串两端的空格，避免多余的空格影响解析
         message = message.trim();
 
-        // 判断 JSON 是对象还是数组，并分别处理
-        if (message.startsWith("{")) {
-            return formatJsonObject(message);  // 格式化 JSON 对象
-        } else if (message.startsWith("[")) {
-            return formatJsonArray(message);  // 格式化 JSON 数组
+        // 判断 JSON 是对象还是数组，两者都直接流式缩进，不解析成 JSONObject/JSONArray
+        if (message.startsWith("{") || message.startsWith("[")) {
+            return formatJson(message);
         } else {
             // 如果 JSON 格式无效（既不是对象也不是数组），记录警告日志
             LoggerUtils.warn("Invalid JSON format. JSON should start with '{' or '['.");
@@ -45,36 +56,24 @@ public class JsonLogFormatter implements LogFormatter<String> {
     }
 
     /**
-     * 格式化 JSON 对象，进行漂亮打印
-     * @param json JSON 对象字符串
-     * @return 格式化后的 JSON 字符串，如果格式化失败，返回原始字符串
+     * 格式化 JSON 对象或数组，进行漂亮打印，保持原有的 key 顺序
+     * @param json JSON 字符串
+     * @return 格式化后的 JSON 字符串，如果结构不完整，返回原始字符串（同样受长度/行数上限约束）
      */
-    private String formatJsonObject(String json) {
-        try {
-            // 使用 JSONObject 解析并格式化 JSON 对象
-            JSONObject jsonObject = new JSONObject(json);
-            return jsonObject.toString(JSON_INDENT);  // 格式化为带缩进的 JSON 字符串
-        } catch (JSONException e) {
-            // 如果格式化过程中发生异常，记录错误日志
-            LoggerUtils.error("Error formatting JSON Object", e);
-            return json;  // 如果格式化失败，返回原始 JSON 字符串
+    private String formatJson(String json) {
+        // 缩进后通常比原文长一半左右，预留容量避免反复扩容，但不超过输出上限
+        StringBuilder builder = new StringBuilder(Math.min(json.length() + (json.length() >> 1), maxLength));
+        int consumed = JsonIndenter.indent(json, builder, JSON_INDENT, maxLength, maxLines);
+        if (consumed == json.length()) {
+            return builder.toString();
         }
-    }
-
-    /**
-     * 格式化 JSON 数组，进行漂亮打印
-     * @param json JSON 数组字符串
-     * @return 格式化后的 JSON 字符串，如果格式化失败，返回原始字符串
-     */
-    private String formatJsonArray(String json) {
-        try {
-            // 使用 JSONArray 解析并格式化 JSON 数组
-            JSONArray jsonArray = new JSONArray(json);
-            return jsonArray.toString(JSON_INDENT);  // 格式化为带缩进的 JSON 字符串
-        } catch (JSONException e) {
-            // 如果格式化过程中发生异常，记录错误日志
-            LoggerUtils.error("Error formatting JSON Array", e);
-            return json;  // 如果格式化失败，返回原始 JSON 字符串
+        if (consumed != JsonIndenter.MALFORMED) {
+            // 达到上限，剩余部分不再格式化
+            TruncationMarker.append(builder, json, consumed);
+            return builder.toString();
         }
+        // 如果结构不完整（括号不配对、字符串未闭合等），记录警告日志
+        LoggerUtils.warn("Error formatting JSON, malformed input.");
+        return TruncationMarker.truncate(json, maxLength, maxLines);  // 如果格式化失败，返回原始 JSON 字符串
     }
 }
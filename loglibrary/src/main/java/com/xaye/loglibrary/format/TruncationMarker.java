@@ -0,0 +1,91 @@
+package com.xaye.loglibrary.format;
+
+/**
+ * 格式化输出达到字节数/行数上限时的截断处理，末尾追加 "...truncated N bytes"，N 为未输出部分的 UTF-8 字节数；
+ * 上限和 N 都按 UTF-8 字节计算，截断位置不会落在代理对中间
+ */
+final class TruncationMarker {
+
+    private TruncationMarker() {
+    }
+
+    /**
+     * 去掉已输出内容末尾的空白，另起一行追加截断标记
+     *
+     * @param from 原文中尚未输出部分的起始位置
+     */
+    static void append(StringBuilder out, String source, int from) {
+        int end = out.length();
+        while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) {
+            end--;
+        }
+        out.setLength(end);
+        out.append('\n').append("...truncated ").append(utf8Length(source, from, source.length())).append(" bytes");
+    }
+
+    /**
+     * 不做美化，只把原文截断到上限以内
+     *
+     * @return 未超过上限时返回原文
+     */
+    static String truncate(String source, int maxBytes, int maxLines) {
+        int stop = fitUtf8(source, 0, source.length(), maxBytes);
+        int lines = 1;
+        for (int i = 0; i < stop; i++) {
+            if (source.charAt(i) == '\n' && ++lines > maxLines) {
+                stop = i;
+                break;
+            }
+        }
+        if (stop == source.length()) {
+            return source;
+        }
+        StringBuilder out = new StringBuilder(stop + 32);
+        out.append(source, 0, stop);
+        append(out, source, stop);
+        return out.toString();
+    }
+
+    /**
+     * [from, to) 编码为 UTF-8 的字节数，代理对的两个字符各计 2 字节
+     */
+    static long utf8Length(CharSequence source, int from, int to) {
+        long bytes = 0;
+        for (int i = from; i < to; i++) {
+            bytes += utf8Length(source.charAt(i));
+        }
+        return bytes;
+    }
+
+    /**
+     * @return 从 start 开始、UTF-8 编码不超过 maxBytes 的最远位置（不超过 end），不会拆开代理对
+     */
+    static int fitUtf8(CharSequence source, int start, int end, long maxBytes) {
+        long bytes = 0;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            int size = utf8Length(c);
+            boolean pair = Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(source.charAt(i + 1));
+            if (pair) {
+                size += utf8Length(source.charAt(i + 1));
+            }
+            if (bytes + size > maxBytes) {
+                return i;
+            }
+            bytes += size;
+            if (pair) {
+                i++;
+            }
+        }
+        return end;
+    }
+
+    private static int utf8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        } else if (c < 0x800 || Character.isSurrogate(c)) {
+            return 2;
+        }
+        return 3;
+    }
+}
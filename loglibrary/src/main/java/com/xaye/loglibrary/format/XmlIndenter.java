@@ -0,0 +1,224 @@
+package com.xaye.loglibrary.format;
+
+/**
+ * 流式 XML 缩进：逐个扫描标签和文本，直接写入输出缓冲区，不经过 JAXP 的 Transformer。
+ * 只含文本的元素保持在一行（如 &lt;name&gt;item&lt;/name&gt;），标签内容和属性原样输出；
+ * 只校验开始/结束标签配对、标签闭合以及根元素之外没有多余内容，不满足时返回 {@link #MALFORMED}，由调用方回退为原始内容。
+ * 输出达到字节数或行数上限时停止，返回已处理到的原文位置，由调用方追加截断标记。
+ */
+final class XmlIndenter {
+    static final int MALFORMED = -1;
+
+    private static final String SPACES = "                                ";
+
+    private XmlIndenter() {
+    }
+
+    /**
+     * @param xml        XML 文本
+     * @param out        输出缓冲区，失败时其中可能残留部分内容
+     * @param indentSize 每层缩进的空格数
+     * @param maxBytes   最多输出的 UTF-8 字节数
+     * @param maxLines   最多输出的行数
+     * @return 完整输出时返回 xml.length()，达到上限时返回已处理到的原文位置，结构不完整时返回 {@link #MALFORMED}
+     */
+    static int indent(String xml, StringBuilder out, int indentSize, int maxBytes, int maxLines) {
+        int length = xml.length();
+        // 未闭合元素的标签名在原文中的位置，深度即占用的长度
+        int[] nameStarts = new int[16];
+        int[] nameEnds = new int[16];
+        int depth = 0;
+        boolean rootClosed = false;
+        // 上一个输出的是开始标签（或紧跟其后的文本），此时文本和结束标签接在同一行
+        boolean inline = false;
+        int outStart = out.length();
+        int counted = outStart; // 已计入 bytes 的输出位置，增量统计，整体只扫描一遍输出
+        long bytes = 0;
+        int lines = 1;
+
+        int i = 0;
+        while (i < length) {
+            bytes += TruncationMarker.utf8Length(out, counted, out.length());
+            counted = out.length();
+            if (bytes >= maxBytes || lines > maxLines) {
+                return i;
+            }
+            char c = xml.charAt(i);
+            if (c != '<') {
+                int end = xml.indexOf('<', i);
+                if (end < 0) {
+                    end = length;
+                }
+                int start = i;
+                int textEnd = end;
+                while (start < textEnd && isWhitespace(xml.charAt(start))) {
+                    start++;
+                }
+                while (textEnd > start && isWhitespace(xml.charAt(textEnd - 1))) {
+                    textEnd--;
+                }
+                if (start < textEnd) {
+                    if (depth == 0) {
+                        return MALFORMED; // 根元素之外的文本
+                    }
+                    if (!inline) {
+                        newLine(out, depth * indentSize);
+                        lines++;
+                    }
+                    bytes += TruncationMarker.utf8Length(out, counted, out.length());
+                    counted = out.length();
+                    int stop = TruncationMarker.fitUtf8(xml, start, textEnd, Math.max(maxBytes - bytes, 0));
+                    if (stop < textEnd) {
+                        // 超长的文本只输出到上限为止
+                        out.append(xml, start, stop);
+                        return stop;
+                    }
+                    out.append(xml, start, textEnd);
+                }
+                i = end;
+                continue;
+            }
+
+            if (xml.startsWith("<![CDATA[", i)) {
+                int end = xml.indexOf("]]>", i + 9);
+                if (end < 0 || depth == 0) {
+                    return MALFORMED;
+                }
+                if (!inline) {
+                    newLine(out, depth * indentSize);
+                    lines++;
+                }
+                out.append(xml, i, end + 3);
+                i = end + 3;
+                continue;
+            }
+
+            int end;
+            if (xml.startsWith("<!--", i)) {
+                int commentEnd = xml.indexOf("-->", i + 4);
+                end = commentEnd < 0 ? -1 : commentEnd + 2;
+            } else if (xml.startsWith("<?", i)) {
+                int instructionEnd = xml.indexOf("?>", i + 2);
+                end = instructionEnd < 0 ? -1 : instructionEnd + 1;
+            } else {
+                end = findTagEnd(xml, i + 1);
+            }
+            if (end < 0) {
+                return MALFORMED; // 标签未闭合
+            }
+
+            char next = i + 1 < length ? xml.charAt(i + 1) : 0;
+            if (next == '/') {
+                // 结束标签
+                int nameStart = i + 2;
+                int nameEnd = findNameEnd(xml, nameStart, end);
+                if (depth == 0 || !sameName(xml, nameStarts[depth - 1], nameEnds[depth - 1], nameStart, nameEnd)) {
+                    return MALFORMED;
+                }
+                depth--;
+                if (!inline) {
+                    newLine(out, depth * indentSize);
+                    lines++;
+                }
+                out.append(xml, i, end + 1);
+                inline = false;
+                rootClosed = depth == 0;
+            } else if (next == '!' || next == '?') {
+                // 注释、声明、DOCTYPE 独占一行
+                if (out.length() > outStart) {
+                    newLine(out, depth * indentSize);
+                    lines++;
+                }
+                out.append(xml, i, end + 1);
+                inline = false;
+            } else {
+                // 开始标签或自闭合标签
+                if (rootClosed) {
+                    return MALFORMED; // 多个根元素
+                }
+                if (out.length() > outStart) {
+                    newLine(out, depth * indentSize);
+                    lines++;
+                }
+                out.append(xml, i, end + 1);
+                if (xml.charAt(end - 1) == '/') {
+                    inline = false;
+                    rootClosed = depth == 0;
+                } else {
+                    if (depth == nameStarts.length) {
+                        int[] grownStarts = new int[depth << 1];
+                        int[] grownEnds = new int[depth << 1];
+                        System.arraycopy(nameStarts, 0, grownStarts, 0, depth);
+                        System.arraycopy(nameEnds, 0, grownEnds, 0, depth);
+                        nameStarts = grownStarts;
+                        nameEnds = grownEnds;
+                    }
+                    nameStarts[depth] = i + 1;
+                    nameEnds[depth] = findNameEnd(xml, i + 1, end);
+                    depth++;
+                    inline = true;
+                }
+            }
+            i = end + 1;
+        }
+        return rootClosed && depth == 0 ? length : MALFORMED;
+    }
+
+    /**
+     * @return 标签结尾 '&gt;' 的位置，跳过属性值中的 '&gt;' 和 DOCTYPE 内部的 [...]；未闭合时返回 -1
+     */
+    private static int findTagEnd(String xml, int start) {
+        int length = xml.length();
+        char quote = 0;
+        int brackets = 0;
+        for (int i = start; i < length; i++) {
+            char c = xml.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '[') {
+                brackets++;
+            } else if (c == ']') {
+                brackets--;
+            } else if (c == '>' && brackets <= 0) {
+                return i;
+            } else if (c == '<' && brackets <= 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int findNameEnd(String xml, int start, int tagEnd) {
+        int i = start;
+        while (i < tagEnd) {
+            char c = xml.charAt(i);
+            if (isWhitespace(c) || c == '/' || c == '>') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean sameName(String xml, int start1, int end1, int start2, int end2) {
+        int length = end1 - start1;
+        return length == end2 - start2 && xml.regionMatches(start1, xml, start2, length);
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static void newLine(StringBuilder out, int spaces) {
+        out.append('\n');
+        while (spaces > 0) {
+            int count = Math.min(spaces, SPACES.length());
+            out.append(SPACES, 0, count);
+            spaces -= count;
+        }
+    }
+}
@@ -2,16 +2,6 @@ package com.xaye.loglibrary.format;
 
 import com.xaye.loglibrary.utils.LoggerUtils;
 
-import java.io.StringReader;
-import java.io.StringWriter;
-
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
-
 /**
  * Author xaye
  *
@@ -22,6 +12,36 @@ public class XmlLogFormatter implements LogFormatter<String> {
     // 美化输出时使用的缩进空格数
     private static final int XML_INDENT = 4;
 
+    // 默认超过此长度（字符数）的 XML 不再美化，直接输出原文
+    public static final int DEFAULT_MAX_FORMAT_LENGTH = 512 * 1024;
+
+    private final int maxFormatLength;
+    private final int maxLength;
+    private final int maxLines;
+
+    public XmlLogFormatter() {
+        this(DEFAULT_MAX_FORMAT_LENGTH);
+    }
+
+    /**
+     * @param maxFormatLength 超过此长度（字符数）的 XML 直接输出原文，不进行美化
+     */
+    public XmlLogFormatter(int maxFormatLength) {
+        this(maxFormatLength, 0, 0);
+    }
+
+    /**
+     * 截断模式：输出达到上限后停止格式化，末尾追加 "...truncated N bytes"
+     * @param maxFormatLength 超过此长度（字符数）的 XML 直接输出原文，不进行美化
+     * @param maxLength       最多输出的 UTF-8 字节数，小于等于 0 表示不限制
+     * @param maxLines        最多输出的行数，小于等于 0 表示不限制
+     */
+    public XmlLogFormatter(int maxFormatLength, int maxLength, int maxLines) {
+        this.maxFormatLength = maxFormatLength;
+        this.maxLength = maxLength > 0 ? maxLength : Integer.MAX_VALUE;
+        this.maxLines = maxLines > 0 ? maxLines : Integer.MAX_VALUE;
+    }
+
     /**
      * 格式化 XML 消息
      * @param message 要格式化的 XML 字符串
@@ -37,39 +57,35 @@ public class XmlLogFormatter implements LogFormatter<String> {
         // 去除字符串两端的空格，避免多余的空格影响解析
         message = message.trim();
 
+        // 超长的报文美化的代价太大，直接输出原文
+        if (message.length() > maxFormatLength) {
+            return TruncationMarker.truncate(message, maxLength, maxLines);
+        }
+
         // 格式化 XML 字符串
         return formatXml(message);
     }
 
     /**
-     * 格式化 XML 字符串，进行漂亮打印
+     * 格式化 XML 字符串，进行漂亮打印。
+     * 流式扫描标签直接缩进，不再每次创建 TransformerFactory/Transformer
      * @param xml 要格式化的 XML 字符串
-     * @return 格式化后的 XML 字符串，如果格式化失败，返回原始字符串
+     * @return 格式化后的 XML 字符串，如果格式化失败，返回原始字符串（同样受长度/行数上限约束）
      */
     private String formatXml(String xml) {
-        String formattedString = null;
-        try {
-            // 使用 javax.xml.transform 库来格式化 XML 字符串
-            Source xmlInput = new StreamSource(new StringReader(xml));
-            StreamResult xmlOutput = new StreamResult(new StringWriter());
-
-            // 创建 Transformer 实例
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-
-            // 设置输出格式的属性，包括缩进
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", String.valueOf(XML_INDENT));
-
-            // 执行转换并格式化 XML
-            transformer.transform(xmlInput, xmlOutput);
-
-            // 获取格式化后的 XML 字符串
-            formattedString = xmlOutput.getWriter().toString().replaceFirst(">", ">" + System.lineSeparator());
-        } catch (Exception e) {
-            // 格式化失败时记录错误日志
-            LoggerUtils.error("Error formatting XML", e);
-            return xml;  // 如果格式化失败，返回原始 XML 字符串
+        // 缩进后通常比原文长一半左右，预留容量避免反复扩容，但不超过输出上限
+        StringBuilder builder = new StringBuilder(Math.min(xml.length() + (xml.length() >> 1), maxLength));
+        int consumed = XmlIndenter.indent(xml, builder, XML_INDENT, maxLength, maxLines);
+        if (consumed == xml.length()) {
+            return builder.toString();
+        }
+        if (consumed != XmlIndenter.MALFORMED) {
+            // 达到上限，剩余部分不再格式化
+            TruncationMarker.append(builder, xml, consumed);
+            return builder.toString();
         }
-        return formattedString;
+        // 标签不配对、未闭合等情况，记录错误日志
+        LoggerUtils.warn("Error formatting XML, malformed input.");
+        return TruncationMarker.truncate(xml, maxLength, maxLines);  // 如果格式化失败，返回原始 XML 字符串
     }
 }
@@ -2,14 +2,54 @@ package com.xaye.loglibrary.printer;
 
 import android.util.Log;
 
+import com.xaye.loglibrary.utils.LogChunker;
+
 /**
  * Author xaye
  *
  * @date: 2024/11/11
  */
 public class ConsoleLogPrinter implements LogPrinter{
+    // 默认值：单次打印最大长度（UTF-8 字节数），超过会被分段打印
+    public static final int DEFAULT_MAX_LOG_LENGTH = 3 * 1024;
+
+    private volatile int maxLogLength;
+
+    public ConsoleLogPrinter() {
+        this(DEFAULT_MAX_LOG_LENGTH);
+    }
+
+    /**
+     * @param maxLogLength 单次打印最大长度（UTF-8 字节数），超过会在换行或字符边界处分段打印，小于等于 0 表示不分段
+     */
+    public ConsoleLogPrinter(int maxLogLength) {
+        this.maxLogLength = maxLogLength;
+    }
+
+    public void setMaxLogLength(int maxLogLength) {
+        this.maxLogLength = maxLogLength;
+    }
+
     @Override
     public void printLog(int priority, String tag, String message, Throwable throwable) {
+        if (message == null) {
+            print(priority, tag, null, throwable);
+            return;
+        }
+        int maxBytes = maxLogLength;
+        int length = message.length();
+        int start = 0;
+        do {
+            int end = LogChunker.chunkEnd(message, start, maxBytes);
+            // 不需要分段时直接输出原字符串；Log 只接受 String，分段时每段仍需一次拷贝
+            String chunk = start == 0 && end == length ? message : message.substring(start, end);
+            start = LogChunker.nextStart(message, end);
+            // 异常堆栈跟在最后一段后面
+            print(priority, tag, chunk, start >= length ? throwable : null);
+        } while (start < length);
+    }
+
+    private void print(int priority, String tag, String message, Throwable throwable) {
         if (throwable != null) {
             Log.e(tag, message, throwable);  // Log to console (Android Log)
         } else {
@@ -1,5 +1,7 @@
 package com.xaye.loglibrary.printer;
 
+import com.xaye.loglibrary.LogRecord;
+
 /**
  * Author xaye
  *
@@ -7,4 +9,11 @@ package com.xaye.loglibrary.printer;
  */
 public interface LogPrinter {
     void printLog(int priority, String tag, String message, Throwable throwable);
+
+    /**
+     * 输出一条日志记录；记录的 message 已包含格式化后的堆栈，默认不再单独传入异常
+     */
+    default void printLog(LogRecord record) {
+        printLog(record.getLevel(), record.getTag(), record.getMessage(), null);
+    }
 }
@@ -0,0 +1,135 @@
+package com.xaye.loglibrary.sink;
+
+import android.util.Log;
+import com.xaye.loglibrary.LogRecord;
+import com.xaye.loglibrary.file.LogRingBuffer;
+import com.xaye.loglibrary.file.OverflowPolicy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步日志追加器：
+ * 调用线程只把日志放进有界无锁环形缓冲区，由唯一的后台线程取出交给 handler 处理；
+ * 缓冲区写满时按 {@link OverflowPolicy} 处理。
+ * 文件写入和 {@link AsyncLogSink} 都基于它，每个实例独占一个后台线程。
+ */
+public final class AsyncLogAppender {
+    private static final String TAG = "AsyncLogAppender";
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long CLOSE_TIMEOUT_MILLIS = 3000L;
+
+    private final LogRingBuffer ringBuffer;
+    private final LogRingBuffer.EntryHandler handler;
+    // 把 handler 的异常限制在单条日志内，后台线程不会因此退出
+    private final LogRingBuffer.EntryHandler safeHandler = this::handleSafely;
+    private final int overflowPolicy;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+    private volatile boolean writerParked;
+
+    public AsyncLogAppender(String threadName, int bufferSize, int overflowPolicy, LogRingBuffer.EntryHandler handler) {
+        this.ringBuffer = new LogRingBuffer(bufferSize);
+        this.overflowPolicy = overflowPolicy;
+        this.handler = handler;
+        this.writerThread = new Thread(this::drainLoop, threadName);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * 追加一条日志，正常情况下不会阻塞调用线程；入队时复制字段，返回后 record 可以回收
+     */
+    public void append(LogRecord record) {
+        if (!ringBuffer.offer(record)) {
+            if (!handleOverflow(record)) {
+                return;
+            }
+        }
+        if (writerParked) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * 缓冲区已满时按策略处理
+     *
+     * @return 日志最终是否入队
+     */
+    private boolean handleOverflow(LogRecord record) {
+        switch (overflowPolicy) {
+            case OverflowPolicy.DROP_NEWEST:
+                droppedCount.incrementAndGet();
+                return false;
+            case OverflowPolicy.DROP_OLDEST:
+                while (!ringBuffer.offer(record)) {
+                    if (ringBuffer.poll(null)) {
+                        droppedCount.incrementAndGet();
+                    }
+                }
+                return true;
+            case OverflowPolicy.BLOCK:
+            default:
+                while (!ringBuffer.offer(record)) {
+                    if (!running) {
+                        droppedCount.incrementAndGet();
+                        return false;
+                    }
+                    LockSupport.unpark(writerThread);
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                }
+                return true;
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            while (running || !ringBuffer.isEmpty()) {
+                boolean drained = false;
+                while (ringBuffer.poll(safeHandler)) {
+                    drained = true;
+                }
+                if (!drained && running) {
+                    writerParked = true;
+                    // 标记之后再检查一次，避免错过生产者的唤醒
+                    if (ringBuffer.isEmpty()) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    writerParked = false;
+                }
+            }
+        } finally {
+            // 因 Error 等意外退出时同样标记为停止，BLOCK 策略的调用线程改为丢弃而不是一直等待
+            running = false;
+        }
+    }
+
+    private void handleSafely(LogRecord record) {
+        try {
+            handler.onEntry(record);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "处理日志异常", e);
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 停止后台线程，退出前会把缓冲区中剩余的日志处理完
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.xaye.loglibrary.sink;
+
+import com.xaye.loglibrary.LogRecord;
+import com.xaye.loglibrary.file.OverflowPolicy;
+
+/**
+ * 把慢速的 LogSink（文件、上传等）隔离到独立的队列和后台线程：
+ * 调用线程只入队，不会因为被包装的目标变慢而阻塞其他目标的输出。
+ */
+public class AsyncLogSink implements LogSink {
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private final LogSink delegate;
+    private final AsyncLogAppender appender;
+
+    /**
+     * 缓冲区写满时丢弃最新的日志，保证调用线程永不阻塞
+     */
+    public AsyncLogSink(LogSink delegate) {
+        this(delegate, DEFAULT_BUFFER_SIZE, OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * @param bufferSize     队列容量
+     * @param overflowPolicy 队列写满时的处理策略，见 {@link OverflowPolicy}
+     */
+    public AsyncLogSink(LogSink delegate, int bufferSize, int overflowPolicy) {
+        this.delegate = delegate;
+        this.appender = new AsyncLogAppender(
+                "LogSink-" + delegate.getClass().getSimpleName(),
+                bufferSize,
+                overflowPolicy,
+                delegate::write
+        );
+    }
+
+    @Override
+    public boolean isLoggable(int level) {
+        return delegate.isLoggable(level);
+    }
+
+    @Override
+    public void write(LogRecord record) {
+        appender.append(record);
+    }
+
+    public long getDroppedCount() {
+        return appender.getDroppedCount();
+    }
+
+    /**
+     * 停止后台线程，退出前会把队列中剩余的日志交给被包装的目标
+     */
+    public void close() {
+        appender.close();
+    }
+}
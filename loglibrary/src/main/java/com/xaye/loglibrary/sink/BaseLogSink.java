@@ -0,0 +1,27 @@
+package com.xaye.loglibrary.sink;
+
+import com.xaye.loglibrary.utils.LogLevel;
+
+/**
+ * 带独立级别阈值的 LogSink，阈值可在运行时修改
+ */
+public abstract class BaseLogSink implements LogSink {
+    private volatile int minLevel = LogLevel.ALL;
+
+    public int getMinLevel() {
+        return minLevel;
+    }
+
+    /**
+     * @param minLevel 低于此级别的日志不会输出到此目标
+     */
+    public BaseLogSink setMinLevel(int minLevel) {
+        this.minLevel = minLevel;
+        return this;
+    }
+
+    @Override
+    public boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+}
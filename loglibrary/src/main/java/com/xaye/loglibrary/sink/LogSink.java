@@ -0,0 +1,20 @@
+package com.xaye.loglibrary.sink;
+
+import com.xaye.loglibrary.LogRecord;
+
+/**
+ * 日志输出目标。XLogger 对每条日志只计算一次 tag 和消息，然后分发给所有已注册的 LogSink。
+ * write 在调用 XLogger 的线程上执行，耗时的输出目标应使用 {@link AsyncLogSink} 包装。
+ */
+public interface LogSink {
+
+    /**
+     * @return 该级别的日志是否需要输出到此目标
+     */
+    boolean isLoggable(int level);
+
+    /**
+     * @param record 所有目标共用同一个记录，分发结束后会被回收，需要保留时复制其中的字段
+     */
+    void write(LogRecord record);
+}
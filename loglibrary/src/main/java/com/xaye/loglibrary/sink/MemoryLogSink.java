@@ -0,0 +1,74 @@
+package com.xaye.loglibrary.sink;
+
+import com.xaye.loglibrary.LogRecord;
+import com.xaye.loglibrary.utils.LogLevel;
+import com.xaye.loglibrary.utils.TimestampEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在内存中保留最近 N 条日志，可用于崩溃上报、页面内查看日志等场景。
+ * 写入时只保存原始字段，读取时才格式化成文本。
+ */
+public class MemoryLogSink extends BaseLogSink {
+    private final long[] times;
+    private final int[] levels;
+    private final String[] tags;
+    private final String[] messages;
+    private int next;
+    private int size;
+
+    /**
+     * @param capacity 最多保留的日志条数
+     */
+    public MemoryLogSink(int capacity) {
+        int size = Math.max(1, capacity);
+        this.times = new long[size];
+        this.levels = new int[size];
+        this.tags = new String[size];
+        this.messages = new String[size];
+    }
+
+    @Override
+    public synchronized void write(LogRecord record) {
+        times[next] = record.getTimeMillis();
+        levels[next] = record.getLevel();
+        tags[next] = record.getTag();
+        messages[next] = record.getMessage();
+        next = (next + 1) % times.length;
+        if (size < times.length) {
+            size++;
+        }
+    }
+
+    /**
+     * @return 按时间顺序排列的日志，格式为 "MM-dd HH:mm:ss.SSS L/tag: message"
+     */
+    public synchronized List<String> getLogs() {
+        List<String> logs = new ArrayList<>(size);
+        TimestampEncoder encoder = new TimestampEncoder();
+        char[] timestamp = new char[TimestampEncoder.LENGTH];
+        int start = (next - size + times.length) % times.length;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % times.length;
+            encoder.encode(times[index], timestamp, 0);
+            logs.add(new StringBuilder()
+                    .append(timestamp)
+                    .append(' ').append(LogLevel.getShortLevelName(levels[index]))
+                    .append('/').append(tags[index])
+                    .append(": ").append(messages[index])
+                    .toString());
+        }
+        return logs;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < times.length; i++) {
+            tags[i] = null;
+            messages[i] = null;
+        }
+        next = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.xaye.loglibrary.sink;
+
+import com.xaye.loglibrary.LogRecord;
+import com.xaye.loglibrary.printer.LogPrinter;
+
+/**
+ * 把 {@link LogPrinter} 适配为 LogSink，默认的控制台输出即通过它注册
+ */
+public class PrinterSink extends BaseLogSink {
+    private volatile LogPrinter printer;
+
+    public PrinterSink(LogPrinter printer) {
+        this.printer = printer;
+    }
+
+    public LogPrinter getPrinter() {
+        return printer;
+    }
+
+    public void setPrinter(LogPrinter printer) {
+        this.printer = printer;
+    }
+
+    @Override
+    public void write(LogRecord record) {
+        printer.printLog(record);
+    }
+}
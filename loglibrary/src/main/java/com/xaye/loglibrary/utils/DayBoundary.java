@@ -0,0 +1,74 @@
+package com.xaye.loglibrary.utils;
+
+import java.util.Calendar;
+
+/**
+ * 缓存当天的起止时间，用于判断日志是否需要切换到新的日期文件。
+ * 热路径只比较两个 long，不格式化日期、不创建对象；
+ * 只有越过预先算好的边界时才用 Calendar 重新计算。
+ * 为了感知时区变化，边界最多只缓存 {@link #RECHECK_INTERVAL_MILLIS}；
+ * 时间早于当天起点（系统时钟被调回）同样会触发重新计算。
+ * 非线程安全，由写日志文件的持有者使用。
+ */
+public final class DayBoundary {
+    private static final long RECHECK_INTERVAL_MILLIS = 60 * 1000L;
+
+    private long dayStartMillis = Long.MAX_VALUE;
+    private long nextCheckMillis = Long.MIN_VALUE;
+    private String date;
+
+    /**
+     * @return true 表示越过了缓存的边界，需要调用 {@link #refresh(long)}
+     */
+    public boolean isCrossed(long timeMillis) {
+        return timeMillis >= nextCheckMillis || timeMillis < dayStartMillis;
+    }
+
+    /**
+     * 按当前默认时区重新计算边界
+     *
+     * @return 日期（yyyy-MM-dd）是否发生了变化
+     */
+    public boolean refresh(long timeMillis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timeMillis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        String newDate = formatDate(calendar);
+        dayStartMillis = calendar.getTimeInMillis();
+
+        // 按日历加一天，夏令时切换当天不是 24 小时
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        nextCheckMillis = Math.min(calendar.getTimeInMillis(), timeMillis + RECHECK_INTERVAL_MILLIS);
+
+        boolean changed = !newDate.equals(date);
+        date = newDate;
+        return changed;
+    }
+
+    /**
+     * @return 当前日期，格式 yyyy-MM-dd
+     */
+    public String getDate() {
+        return date;
+    }
+
+    private static String formatDate(Calendar calendar) {
+        int year = calendar.get(Calendar.YEAR);
+        int month = calendar.get(Calendar.MONTH) + 1;
+        int day = calendar.get(Calendar.DAY_OF_MONTH);
+        StringBuilder builder = new StringBuilder(10);
+        builder.append(year).append('-');
+        if (month < 10) {
+            builder.append('0');
+        }
+        builder.append(month).append('-');
+        if (day < 10) {
+            builder.append('0');
+        }
+        builder.append(day);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.xaye.loglibrary.utils;
+
+/**
+ * 把超长日志按 UTF-8 字节数切分成多段（logcat 单条日志约 4KB，超出部分会被直接丢弃）：
+ * 只计算每段在原字符串中的下标范围，不会拆开代理对，段内有换行符时优先在最后一个换行处切分。
+ * <pre>
+ * int start = 0;
+ * while (start &lt; message.length()) {
+ *     int end = LogChunker.chunkEnd(message, start, maxBytes);
+ *     print(message, start, end);
+ *     start = LogChunker.nextStart(message, end);
+ * }
+ * </pre>
+ */
+public final class LogChunker {
+
+    private LogChunker() {
+    }
+
+    /**
+     * @param start    本段在 message 中的起始位置
+     * @param maxBytes 每段最多的 UTF-8 字节数，小于等于 0 表示不切分
+     * @return 本段的结束位置（不包含）
+     */
+    public static int chunkEnd(String message, int start, int maxBytes) {
+        int length = message.length();
+        // 每个字符最多 3 个字节（代理对 2 个字符 4 个字节），剩余部分肯定放得下时不必逐字符计算
+        if (maxBytes <= 0 || (long) (length - start) * 3 <= maxBytes) {
+            return length;
+        }
+
+        int bytes = 0;
+        int lastNewline = -1;
+        int i = start;
+        while (i < length) {
+            char c = message.charAt(i);
+            int size;
+            int step = 1;
+            if (c < 0x80) {
+                size = 1;
+            } else if (c < 0x800) {
+                size = 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(message.charAt(i + 1))) {
+                size = 4;
+                step = 2;
+            } else {
+                size = 3;
+            }
+            if (bytes + size > maxBytes) {
+                if (i == start) {
+                    // 上限小于一个字符，至少输出一个字符，避免死循环
+                    return i + step;
+                }
+                break;
+            }
+            bytes += size;
+            if (c == '\n') {
+                lastNewline = i;
+            }
+            i += step;
+        }
+        if (i >= length) {
+            return length;
+        }
+        return lastNewline > start ? lastNewline : i;
+    }
+
+    /**
+     * @param end 上一段的结束位置
+     * @return 下一段的起始位置，切分处的换行符不再输出
+     */
+    public static int nextStart(String message, int end) {
+        return end < message.length() && message.charAt(end) == '\n' ? end + 1 : end;
+    }
+}
@@ -0,0 +1,76 @@
+package com.xaye.loglibrary.utils;
+
+/**
+ * 可复用的日志行缓冲区：把 "时间戳 消息" 或 "时间戳 级别/tag: 消息" 拼接到同一个字符数组里，
+ * 避免每条日志创建 Date、SimpleDateFormat 和拼接出的中间字符串。
+ * 非线程安全，由写日志文件的持有者使用。
+ */
+public final class LogLineBuffer {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final TimestampEncoder timestampEncoder = new TimestampEncoder();
+    private char[] buffer = new char[INITIAL_CAPACITY];
+    private int length;
+
+    /**
+     * 编码一行日志，结果通过 {@link #getBuffer()} 和 {@link #length()} 读取
+     */
+    public void encode(long timeMillis, String message) {
+        message = String.valueOf(message);
+        int messageLength = message.length();
+        ensureCapacity(TimestampEncoder.LENGTH + 1 + messageLength);
+        int pos = timestampEncoder.encode(timeMillis, buffer, 0);
+        buffer[pos++] = ' ';
+        message.getChars(0, messageLength, buffer, pos);
+        length = pos + messageLength;
+    }
+
+    /**
+     * 编码一行带级别和 tag 的日志 "MM-dd HH:mm:ss.SSS L/tag: message"，tag 为 null 时省略 "/tag"，
+     * message 为 null 时与字符串拼接一样写成 "null"
+     */
+    public void encode(long timeMillis, int level, String tag, String message) {
+        message = String.valueOf(message);
+        String levelName = LogLevel.getShortLevelName(level);
+        ensureCapacity(lineLength(levelName, tag, message));
+        int pos = timestampEncoder.encode(timeMillis, buffer, 0);
+        buffer[pos++] = ' ';
+        levelName.getChars(0, levelName.length(), buffer, pos);
+        pos += levelName.length();
+        if (tag != null) {
+            buffer[pos++] = '/';
+            tag.getChars(0, tag.length(), buffer, pos);
+            pos += tag.length();
+        }
+        buffer[pos++] = ':';
+        buffer[pos++] = ' ';
+        message.getChars(0, message.length(), buffer, pos);
+        length = pos + message.length();
+    }
+
+    /**
+     * @return {@link #encode(long, int, String, String)} 编码后的字符数，不含换行
+     */
+    public static int lineLength(int level, String tag, String message) {
+        return lineLength(LogLevel.getShortLevelName(level), tag, message);
+    }
+
+    private static int lineLength(String levelName, String tag, String message) {
+        message = String.valueOf(message);
+        return TimestampEncoder.LENGTH + 1 + levelName.length() + (tag != null ? tag.length() + 1 : 0) + 2 + message.length();
+    }
+
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            buffer = new char[Math.max(capacity, buffer.length << 1)];
+        }
+    }
+}
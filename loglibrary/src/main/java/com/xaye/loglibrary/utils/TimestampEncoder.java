@@ -0,0 +1,71 @@
+package com.xaye.loglibrary.utils;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * 把时间戳编码成 "MM-dd HH:mm:ss.SSS" 写入字符数组，不创建任何对象。
+ * 同一分钟内 "MM-dd HH:mm:" 前缀只计算一次，每条日志只写秒和毫秒的数字。
+ * 前缀每分钟按默认时区重新计算，因此时区变化最多延迟一分钟生效。
+ * 非线程安全，每个写日志文件的持有者各用一个实例。
+ */
+public final class TimestampEncoder {
+
+    /**
+     * 编码结果的固定长度
+     */
+    public static final int LENGTH = 18;
+
+    private static final int PREFIX_LENGTH = 12;
+    private static final long MINUTE_MILLIS = 60 * 1000L;
+
+    private final Calendar calendar = Calendar.getInstance();
+    private final char[] prefix = new char[PREFIX_LENGTH];
+    private long minuteStartMillis = Long.MAX_VALUE;
+
+    /**
+     * @return 写入后的下一个位置，即 offset + {@link #LENGTH}
+     */
+    public int encode(long timeMillis, char[] dst, int offset) {
+        long elapsed = timeMillis - minuteStartMillis;
+        if (elapsed < 0 || elapsed >= MINUTE_MILLIS) {
+            updatePrefix(timeMillis);
+            elapsed = timeMillis - minuteStartMillis;
+        }
+        System.arraycopy(prefix, 0, dst, offset, PREFIX_LENGTH);
+
+        int millisOfMinute = (int) elapsed;
+        int second = millisOfMinute / 1000;
+        int millis = millisOfMinute - second * 1000;
+        int pos = offset + PREFIX_LENGTH;
+        dst[pos++] = (char) ('0' + second / 10);
+        dst[pos++] = (char) ('0' + second % 10);
+        dst[pos++] = '.';
+        dst[pos++] = (char) ('0' + millis / 100);
+        dst[pos++] = (char) ('0' + millis / 10 % 10);
+        dst[pos++] = (char) ('0' + millis % 10);
+        return pos;
+    }
+
+    private void updatePrefix(long timeMillis) {
+        calendar.setTimeZone(TimeZone.getDefault());
+        calendar.setTimeInMillis(timeMillis);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        minuteStartMillis = calendar.getTimeInMillis();
+
+        putTwoDigits(calendar.get(Calendar.MONTH) + 1, 0);
+        prefix[2] = '-';
+        putTwoDigits(calendar.get(Calendar.DAY_OF_MONTH), 3);
+        prefix[5] = ' ';
+        putTwoDigits(calendar.get(Calendar.HOUR_OF_DAY), 6);
+        prefix[8] = ':';
+        putTwoDigits(calendar.get(Calendar.MINUTE), 9);
+        prefix[11] = ':';
+    }
+
+    private void putTwoDigits(int value, int index) {
+        prefix[index] = (char) ('0' + value / 10);
+        prefix[index + 1] = (char) ('0' + value % 10);
+    }
+}
@@ -6,6 +6,11 @@ package com.xaye.loglibrary.utils;
  * @date: 2024/6/28
  */
 public class Util {
+    /**
+     * @deprecated 每段都会创建新字符串，且可能从代理对中间切开；
+     * 控制台输出已由 ConsoleLogPrinter 按 {@link LogChunker} 分段
+     */
+    @Deprecated
     public static String[] splitStr(int MAX_LENGTH,String str) {
         // 字符串长度
         int length = str.length();
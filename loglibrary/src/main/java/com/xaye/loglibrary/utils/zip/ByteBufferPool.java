@@ -0,0 +1,28 @@
+package com.xaye.loglibrary.utils.zip;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 压缩/解压用的读写缓冲区池：缓冲区大小固定，用完归还，
+ * 压缩一个文件不再每次分配新的缓冲区；池满时归还的缓冲区直接丢弃。
+ */
+final class ByteBufferPool {
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED = 4;
+
+    private static final ArrayBlockingQueue<byte[]> pool = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    private ByteBufferPool() {
+    }
+
+    static byte[] acquire() {
+        byte[] buffer = pool.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    static void release(byte[] buffer) {
+        if (buffer != null && buffer.length == BUFFER_SIZE) {
+            pool.offer(buffer);
+        }
+    }
+}
@@ -4,7 +4,6 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -21,17 +20,21 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 public class ZipUtils {
-    private static final int BUFF_SIZE = 1024 * 1024; // 1M Byte 的缓冲区大小
+    private static final int OUTPUT_BUFFER_SIZE = 8 * 1024; // 压缩输出的缓冲区大小，Deflater 每次只输出 512 字节
     private static final String TAG = "ZipUtils";
     private static final Handler mainHandler = new Handler(Looper.getMainLooper()); // 用于将回调发送到主线程
+    private static final Executor MAIN_THREAD = mainHandler::post;
+    private static final Executor CALLING_THREAD = Runnable::run;
     private static final ExecutorService executor = Executors.newSingleThreadExecutor();
 
 
@@ -59,7 +62,32 @@ public class ZipUtils {
     }
 
     /**
-     * 批量压缩文件（夹）。
+     * 在当前线程压缩单个文件或文件夹，回调也在当前线程执行，适合调用方已在后台线程的场景。
+     *
+     * @param resFile 要压缩的文件（夹）。
+     * @param zipFile 生成的压缩文件。
+     * @param listener 进度回调监听器 (可选)。
+     * @return 是否压缩成功。
+     */
+    public static boolean zipFileSync(File resFile, File zipFile, ZipListener listener) {
+        return zipFileSync(resFile, zipFile, Deflater.DEFAULT_COMPRESSION, listener);
+    }
+
+    /**
+     * 在当前线程以指定压缩级别压缩单个文件或文件夹，回调也在当前线程执行。
+     *
+     * @param resFile 要压缩的文件（夹）。
+     * @param zipFile 生成的压缩文件。
+     * @param level 压缩级别，取值同 {@link Deflater}：BEST_SPEED(1) 最快，BEST_COMPRESSION(9) 压缩率最高。
+     * @param listener 进度回调监听器 (可选)。
+     * @return 是否压缩成功。
+     */
+    public static boolean zipFileSync(File resFile, File zipFile, int level, ZipListener listener) {
+        return doZipFiles(Collections.singletonList(resFile), zipFile, "", level, listener, CALLING_THREAD);
+    }
+
+    /**
+     * 批量压缩文件（夹），回调发送到主线程。
      *
      * @param resFileList 要压缩的文件（夹）列表。
      * @param zipFile 生成的压缩文件。
@@ -67,80 +95,105 @@ public class ZipUtils {
      * @param listener 进度回调监听器 (可选)。
      */
     public static void zipFiles(Collection<File> resFileList, File zipFile, String comment, ZipListener listener) {
-        Executors.newSingleThreadExecutor().execute(() -> {
-            if (listener != null) {
-                mainHandler.post(listener::onStart);
-            }
+        zipFiles(resFileList, zipFile, comment, listener, true);
+    }
 
-            Map<File, String> filesToZipMap = new LinkedHashMap<>();
-            Set<String> emptyDirsToZip = new HashSet<>();
+    /**
+     * 批量压缩文件（夹）。
+     *
+     * @param resFileList 要压缩的文件（夹）列表。
+     * @param zipFile 生成的压缩文件。
+     * @param comment 压缩文件的注释 (可选，默认为空)。
+     * @param listener 进度回调监听器 (可选)。
+     * @param callbackOnMainThread 回调是否发送到主线程，false 时直接在压缩线程回调。
+     */
+    public static void zipFiles(Collection<File> resFileList, File zipFile, String comment, ZipListener listener,
+                                boolean callbackOnMainThread) {
+        Executor callbackExecutor = callbackOnMainThread ? MAIN_THREAD : CALLING_THREAD;
+        executor.execute(() -> doZipFiles(resFileList, zipFile, comment, Deflater.DEFAULT_COMPRESSION, listener, callbackExecutor));
+    }
 
-            // 递归收集所有文件和空文件夹
-            collectFiles(resFileList, filesToZipMap, emptyDirsToZip);
+    private static boolean doZipFiles(Collection<File> resFileList, File zipFile, String comment, int level,
+                                      ZipListener listener, Executor callbackExecutor) {
+        if (listener != null) {
+            callbackExecutor.execute(listener::onStart);
+        }
 
-            int totalItems = filesToZipMap.size() + emptyDirsToZip.size();
-            int[] currentItemIndex = {0};
+        Map<File, String> filesToZipMap = new LinkedHashMap<>();
+        Set<String> emptyDirsToZip = new HashSet<>();
 
-            try {
-                if (zipFile.getParentFile() != null) {
-                    zipFile.getParentFile().mkdirs();
-                }
+        // 递归收集所有文件和空文件夹
+        collectFiles(resFileList, filesToZipMap, emptyDirsToZip);
 
-                try (ZipOutputStream zipOut = new ZipOutputStream(
-                        new BufferedOutputStream(new FileOutputStream(zipFile), BUFF_SIZE))) {
-                    zipOut.setComment(comment);
+        int totalItems = filesToZipMap.size() + emptyDirsToZip.size();
+        int[] currentItemIndex = {0};
 
-                    // 先写入空目录
-                    for (String dirEntry : emptyDirsToZip) {
-                        currentItemIndex[0]++;
-                        zipOut.putNextEntry(new ZipEntry(dirEntry));
-                        zipOut.closeEntry();
-                        int idx = currentItemIndex[0];
-                        if (listener != null) {
-                            mainHandler.post(() -> listener.onProgress(dirEntry, 100, totalItems, idx, 0L, 0L));
-                        }
+        try {
+            if (zipFile.getParentFile() != null) {
+                zipFile.getParentFile().mkdirs();
+            }
+
+            byte[] buffer = ByteBufferPool.acquire();
+            try (ZipOutputStream zipOut = new ZipOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(zipFile), OUTPUT_BUFFER_SIZE))) {
+                zipOut.setComment(comment);
+                zipOut.setLevel(level);
+
+                // 先写入空目录
+                for (String dirEntry : emptyDirsToZip) {
+                    currentItemIndex[0]++;
+                    zipOut.putNextEntry(new ZipEntry(dirEntry));
+                    zipOut.closeEntry();
+                    int idx = currentItemIndex[0];
+                    if (listener != null) {
+                        callbackExecutor.execute(() -> listener.onProgress(dirEntry, 100, totalItems, idx, 0L, 0L));
                     }
+                }
 
-                    // 写入文件内容
-                    for (Map.Entry<File, String> entry : filesToZipMap.entrySet()) {
-                        currentItemIndex[0]++;
-                        File file = entry.getKey();
-                        String entryPath = entry.getValue();
+                // 写入文件内容
+                for (Map.Entry<File, String> entry : filesToZipMap.entrySet()) {
+                    currentItemIndex[0]++;
+                    File file = entry.getKey();
+                    String entryPath = entry.getValue();
 
-                        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), BUFF_SIZE)) {
-                            zipOut.putNextEntry(new ZipEntry(entryPath));
-                            byte[] buffer = new byte[BUFF_SIZE];
-                            int realLength;
-                            long bytesRead = 0;
-                            long totalLength = file.length();
-
-                            while ((realLength = in.read(buffer)) != -1) {
-                                zipOut.write(buffer, 0, realLength);
-                                bytesRead += realLength;
-                                int progress = totalLength > 0 ? (int) ((bytesRead * 100.0) / totalLength) : 0;
-                                int idx = currentItemIndex[0];
-                                if (listener != null) {
-                                    long finalBytesRead = bytesRead;
-                                    mainHandler.post(() -> listener.onProgress(file.getName(), progress, totalItems, idx, finalBytesRead, totalLength));
-                                }
+                    // 每次读取一整个缓冲区，不需要再包一层 BufferedInputStream
+                    try (FileInputStream in = new FileInputStream(file)) {
+                        zipOut.putNextEntry(new ZipEntry(entryPath));
+                        int realLength;
+                        long bytesRead = 0;
+                        long totalLength = file.length();
+                        int lastProgress = -1;
+
+                        while ((realLength = in.read(buffer)) != -1) {
+                            zipOut.write(buffer, 0, realLength);
+                            bytesRead += realLength;
+                            int progress = totalLength > 0 ? (int) ((bytesRead * 100.0) / totalLength) : 0;
+                            int idx = currentItemIndex[0];
+                            // 进度百分比变化时才回调
+                            if (listener != null && progress != lastProgress) {
+                                lastProgress = progress;
+                                long finalBytesRead = bytesRead;
+                                callbackExecutor.execute(() -> listener.onProgress(file.getName(), progress, totalItems, idx, finalBytesRead, totalLength));
                             }
-                            zipOut.flush();
-                            zipOut.closeEntry();
                         }
+                        zipOut.closeEntry();
                     }
                 }
+            } finally {
+                ByteBufferPool.release(buffer);
+            }
 
-                if (listener != null) {
-                    mainHandler.post(() -> listener.onSuccess(zipFile));
-                }
-
-            } catch (Exception e) {
-                Log.e(TAG, "压缩失败: " + e.getMessage(), e);
-                if (listener != null) {
-                    mainHandler.post(() -> listener.onFailure(e, "压缩失败: " + e.getMessage()));
-                }
+            if (listener != null) {
+                callbackExecutor.execute(() -> listener.onSuccess(zipFile));
             }
-        });
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "压缩失败: " + e.getMessage(), e);
+            if (listener != null) {
+                callbackExecutor.execute(() -> listener.onFailure(e, "压缩失败: " + e.getMessage()));
+            }
+            return false;
+        }
     }
 
 
@@ -201,27 +254,31 @@ public class ZipUtils {
                     try (InputStream in = zf.getInputStream(zipEntry);
                          FileOutputStream out = new FileOutputStream(desFile)) {
 
-                        byte[] buffer = new byte[BUFF_SIZE];
-                        int realLength;
-                        long bytesReadForCurrentEntry = 0;
-                        long totalEntryBytes = zipEntry.getSize();
-
-                        while ((realLength = in.read(buffer)) > 0) {
-                            out.write(buffer, 0, realLength);
-                            bytesReadForCurrentEntry += realLength;
-
-                            int progress = totalEntryBytes > 0
-                                    ? (int) ((bytesReadForCurrentEntry * 100f) / totalEntryBytes)
-                                    : 0;
-
-                            if (listener != null) {
-                                int finalEntriesProcessed = entriesProcessed;
-                                long finalBytesRead = bytesReadForCurrentEntry;
-                                long finalTotalBytes = totalEntryBytes;
-                                mainHandler.post(() -> listener.onProgress(
-                                        entryName, progress, totalEntries, finalEntriesProcessed,
-                                        finalBytesRead, finalTotalBytes));
+                        byte[] buffer = ByteBufferPool.acquire();
+                        try {
+                            int realLength;
+                            long bytesReadForCurrentEntry = 0;
+                            long totalEntryBytes = zipEntry.getSize();
+
+                            while ((realLength = in.read(buffer)) > 0) {
+                                out.write(buffer, 0, realLength);
+                                bytesReadForCurrentEntry += realLength;
+
+                                int progress = totalEntryBytes > 0
+                                        ? (int) ((bytesReadForCurrentEntry * 100f) / totalEntryBytes)
+                                        : 0;
+
+                                if (listener != null) {
+                                    int finalEntriesProcessed = entriesProcessed;
+                                    long finalBytesRead = bytesReadForCurrentEntry;
+                                    long finalTotalBytes = totalEntryBytes;
+                                    mainHandler.post(() -> listener.onProgress(
+                                            entryName, progress, totalEntries, finalEntriesProcessed,
+                                            finalBytesRead, finalTotalBytes));
+                                }
                             }
+                        } finally {
+                            ByteBufferPool.release(buffer);
                         }
                     }
                 }
@@ -311,25 +368,29 @@ public class ZipUtils {
                             InputStream in = zf.getInputStream(zipEntry);
                             FileOutputStream out = new FileOutputStream(desFile)
                     ) {
-                        byte[] buffer = new byte[BUFF_SIZE];
-                        int len;
-                        long bytesRead = 0L;
-                        long totalSize = zipEntry.getSize();
-
-                        while ((len = in.read(buffer)) > 0) {
-                            out.write(buffer, 0, len);
-                            bytesRead += len;
-
-                            int progress = (totalSize > 0)
-                                    ? (int) ((bytesRead * 100) / totalSize)
-                                    : 0;
-
-                            if (listener != null) {
-                                final int finalProgress = progress;
-                                final long finalBytesRead = bytesRead;
-                                final int finalEntriesProcessed = entriesProcessed;
-                                mainHandler.post(() -> listener.onProgress(entryName, finalProgress, totalEntries, finalEntriesProcessed, finalBytesRead, totalSize));
+                        byte[] buffer = ByteBufferPool.acquire();
+                        try {
+                            int len;
+                            long bytesRead = 0L;
+                            long totalSize = zipEntry.getSize();
+
+                            while ((len = in.read(buffer)) > 0) {
+                                out.write(buffer, 0, len);
+                                bytesRead += len;
+
+                                int progress = (totalSize > 0)
+                                        ? (int) ((bytesRead * 100) / totalSize)
+                                        : 0;
+
+                                if (listener != null) {
+                                    final int finalProgress = progress;
+                                    final long finalBytesRead = bytesRead;
+                                    final int finalEntriesProcessed = entriesProcessed;
+                                    mainHandler.post(() -> listener.onProgress(entryName, finalProgress, totalEntries, finalEntriesProcessed, finalBytesRead, totalSize));
+                                }
                             }
+                        } finally {
+                            ByteBufferPool.release(buffer);
                         }
                     }
 
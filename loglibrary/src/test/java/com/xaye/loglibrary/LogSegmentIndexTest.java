@@ -0,0 +1,139 @@
+package com.xaye.loglibrary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 日志文件名解析、段的排序以及目录索引的增量维护
+ */
+public class LogSegmentIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parsesLogFiles() {
+        assertSegment("2025-07-03.log", "2025-07-03", 0, false);
+        assertSegment("2025-07-03.2.log", "2025-07-03", 2, false);
+        assertSegment("2025-07-03.xlog", "2025-07-03", 0, false);
+        assertSegment("2025-07-03.15.xlog", "2025-07-03", 15, false);
+        assertSegment("2025-07-03.log.gz", "2025-07-03", 0, true);
+        assertSegment("2025-07-03.1.log.gz", "2025-07-03", 1, true);
+    }
+
+    @Test
+    public void parsesArchives() {
+        assertSegment("2025_07_03_log.zip", "2025-07-03", 0, true);
+        assertSegment("2025_07_03_3_log.zip", "2025-07-03", 3, true);
+        assertSegment("2025_07_03_xlog.zip", "2025-07-03", 0, true);
+        assertSegment("2025_07_03_1_xlog.zip", "2025-07-03", 1, true);
+    }
+
+    @Test
+    public void parsesLegacyArchives() {
+        assertSegment("2025-07-03.zip", "2025-07-03", 0, true);
+        assertSegment("2025-07-03_2359.zip", "2025-07-03", 0, true);
+    }
+
+    @Test
+    public void rejectsOtherNames() {
+        String[] names = {
+                "", "2025-07-03", "2025-07-03.", "2025-07-03.txt", "2025-07-03.log.bak", "2025-07-03.2.",
+                "2025_07_03.log", "2025-07_03.log", "2025-7-03.log", "20a5-07-03.log", "2025-07-03_log.zip",
+                "2025_07_03_log.gz", "2025-07-03_23.zip", "2025-07-03.1234567890.log", "crash.log", "2025-07-03..log",
+        };
+        for (String name : names) {
+            assertNull(name, LogSegmentIndex.parse(name));
+        }
+    }
+
+    @Test
+    public void keysSortByDateThenSequence() {
+        String[] names = {
+                "2025-07-04.log", "2025-07-03.10.log", "2025-07-03.log.gz", "2025_07_03_2_log.zip", "2025-07-02.zip",
+        };
+        List<String> keys = new ArrayList<>();
+        for (String name : names) {
+            keys.add(LogSegmentIndex.parse(name).key());
+        }
+        Collections.sort(keys);
+        assertEquals(5, keys.size());
+        assertTrue(keys.get(0), keys.get(0).endsWith("/2025-07-02.zip"));
+        assertTrue(keys.get(1), keys.get(1).endsWith("/2025-07-03.log.gz"));
+        assertTrue(keys.get(2), keys.get(2).endsWith("/2025_07_03_2_log.zip"));
+        assertTrue(keys.get(3), keys.get(3).endsWith("/2025-07-03.10.log"));
+        assertTrue(keys.get(4), keys.get(4).endsWith("/2025-07-04.log"));
+    }
+
+    @Test
+    public void rebuildIndexesLogFilesOnly() throws IOException {
+        File dir = folder.getRoot();
+        write(dir, "2025-07-03.log", 100);
+        write(dir, "2025-07-03.1.log", 50);
+        write(dir, "2025_07_02_log.zip", 30);
+        write(dir, "notes.txt", 1000);
+        assertTrue(new File(dir, "2025-07-01.log").mkdir());
+
+        LogSegmentIndex index = new LogSegmentIndex(dir);
+        index.rebuild();
+
+        assertEquals(180, index.getTotalSize());
+        assertTrue(index.contains("2025-07-03.1.log"));
+        assertFalse(index.contains("notes.txt"));
+        assertFalse(index.contains("2025-07-01.log"));
+        assertEquals("2025-07-03.1.log", index.latest("2025-07-03").name);
+        assertNull(index.latest("2025-07-04"));
+    }
+
+    @Test
+    public void tracksSizesAndOrderIncrementally() {
+        LogSegmentIndex index = new LogSegmentIndex(folder.getRoot());
+        index.put("2025-07-03.log", 100);
+        index.put("2025-07-02.log", 10);
+        index.put("2025-07-03.log", 150);
+        index.put("ignored.txt", 1000);
+        assertEquals(160, index.getTotalSize());
+
+        assertEquals("2025-07-02.log", index.oldestExcept(null, Collections.<String>emptySet()).name);
+        assertEquals("2025-07-03.log", index.oldestExcept("2025-07-02.log", Collections.<String>emptySet()).name);
+        assertNull(index.oldestExcept("2025-07-02.log", Collections.singleton("2025-07-03.log")));
+
+        // 压缩完成：原文件移除，压缩包加入
+        index.remove("2025-07-02.log");
+        index.put("2025_07_02_log.zip", 3);
+        assertEquals(153, index.getTotalSize());
+        assertEquals(1, index.onOrBefore("2025-07-02").size());
+        assertEquals(2, index.onOrBefore("2025-07-03").size());
+        assertEquals(1, index.uncompressed(null).size());
+        assertEquals(0, index.uncompressed("2025-07-03.log").size());
+
+        index.remove("2025-07-03.log");
+        index.remove("2025-07-03.log");
+        assertEquals(3, index.getTotalSize());
+    }
+
+    private static void assertSegment(String name, String date, int sequence, boolean compressed) {
+        LogSegmentIndex.Segment segment = LogSegmentIndex.parse(name);
+        assertNotNull(name, segment);
+        assertEquals(name, segment.name);
+        assertEquals(name, date, segment.date);
+        assertEquals(name, sequence, segment.sequence);
+        assertEquals(name, compressed, segment.compressed);
+        assertEquals(0, segment.size);
+    }
+
+    private static void write(File dir, String name, int size) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(new File(dir, name))) {
+            out.write(new byte[size]);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.xaye.loglibrary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 暂存区的交换、读取以及多个暂存区按时间合并的顺序
+ */
+public class LogStagingBufferTest {
+
+    @Test
+    public void swapHandsOverEntriesInOrder() {
+        LogStagingBuffer buffer = new LogStagingBuffer(Thread.currentThread());
+        assertEquals(1, buffer.add(10L, 3, "A", "first"));
+        assertEquals(2, buffer.add(20L, 4, "B", "second"));
+
+        assertEquals(2, buffer.swap());
+        assertEquals(10L, buffer.peekTime());
+        assertEquals(3, buffer.peekLevel());
+        assertEquals("A", buffer.peekTag());
+        assertEquals("first", buffer.peekMessage());
+        buffer.advance();
+        assertEquals("second", buffer.peekMessage());
+        buffer.advance();
+        assertFalse(buffer.hasDrained());
+    }
+
+    @Test
+    public void addAfterSwapGoesToNextBatch() {
+        LogStagingBuffer buffer = new LogStagingBuffer(Thread.currentThread());
+        buffer.add(10L, 3, null, "first");
+        buffer.swap();
+        buffer.add(20L, 3, null, "second");
+
+        assertEquals("first", buffer.peekMessage());
+        buffer.advance();
+        assertFalse(buffer.hasDrained());
+        assertEquals(1, buffer.swap());
+        assertEquals("second", buffer.peekMessage());
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        LogStagingBuffer buffer = new LogStagingBuffer(Thread.currentThread());
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i, 3, null, "m" + i);
+        }
+        assertEquals(100, buffer.swap());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("m" + i, buffer.peekMessage());
+            buffer.advance();
+        }
+    }
+
+    @Test
+    public void earliestMergesBuffersByTime() {
+        LogStagingBuffer a = new LogStagingBuffer(Thread.currentThread());
+        LogStagingBuffer b = new LogStagingBuffer(Thread.currentThread());
+        LogStagingBuffer c = new LogStagingBuffer(Thread.currentThread());
+        a.add(1L, 3, null, "a1");
+        a.add(5L, 3, null, "a5");
+        b.add(2L, 3, null, "b2");
+        b.add(3L, 3, null, "b3");
+        b.add(8L, 3, null, "b8");
+        c.add(4L, 3, null, "c4");
+        LogStagingBuffer[] buffers = {a, b, c};
+        int drained = a.swap() + b.swap() + c.swap();
+
+        List<String> merged = new ArrayList<>();
+        for (int i = 0; i < drained; i++) {
+            LogStagingBuffer earliest = LogStagingBuffer.earliest(buffers);
+            merged.add(earliest.peekMessage());
+            earliest.advance();
+        }
+
+        assertEquals("[a1, b2, b3, c4, a5, b8]", merged.toString());
+        assertNull(LogStagingBuffer.earliest(buffers));
+    }
+
+    @Test
+    public void earliestKeepsArrayOrderForEqualTimes() {
+        LogStagingBuffer a = new LogStagingBuffer(Thread.currentThread());
+        LogStagingBuffer b = new LogStagingBuffer(Thread.currentThread());
+        b.add(7L, 3, null, "b");
+        a.add(7L, 3, null, "a");
+        a.swap();
+        b.swap();
+
+        assertSame(a, LogStagingBuffer.earliest(new LogStagingBuffer[]{a, b}));
+    }
+
+    @Test
+    public void abandonedOnlyWhenThreadEndedAndEmpty() throws Exception {
+        Thread thread = new Thread(() -> {
+        });
+        thread.start();
+        thread.join();
+        LogStagingBuffer buffer = new LogStagingBuffer(thread);
+        buffer.add(1L, 3, null, "left");
+        assertFalse(buffer.isAbandoned());
+        buffer.swap();
+        assertFalse(buffer.isAbandoned());
+        buffer.advance();
+        assertTrue(buffer.isAbandoned());
+
+        assertFalse(new LogStagingBuffer(Thread.currentThread()).isAbandoned());
+    }
+}
@@ -0,0 +1,72 @@
+package com.xaye.loglibrary;
+
+import com.xaye.loglibrary.sink.MemoryLogSink;
+import com.xaye.loglibrary.utils.LogLevel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 格式化重载：char 参数按字符输出，格式串与参数不匹配时输出原始格式串和参数而不是抛出异常
+ */
+public class XLoggerFormatTest {
+    private final MemoryLogSink sink = new MemoryLogSink(16);
+
+    @Before
+    public void setUp() {
+        XLogger.init(new LogConfiguration.Builder()
+                .setDebugEnabled(true)
+                .setLogLevel(LogLevel.VERBOSE)
+                .setStackTraceEnabled(false)
+                .build());
+        XLogger.addSink(sink);
+    }
+
+    @After
+    public void tearDown() {
+        XLogger.removeSink(sink);
+    }
+
+    @Test
+    public void charArgumentIsFormattedAsCharacter() {
+        XLogger.d("T", "grade %s", 'A');
+        XLogger.i("T", "grade %c", 'B');
+        XLogger.log(LogLevel.WARN, "T", "grade %s", 'C');
+        assertEquals("grade A", message(0));
+        assertEquals("grade B", message(1));
+        assertEquals("grade C", message(2));
+    }
+
+    @Test
+    public void primitiveOverloadsStillFormat() {
+        XLogger.d("T", "%d items", 3);
+        XLogger.d("T", "%d bytes", 4L);
+        XLogger.d("T", "%.1f%%", 0.5);
+        assertEquals("3 items", message(0));
+        assertEquals("4 bytes", message(1));
+        assertEquals("0.5%", message(2));
+    }
+
+    @Test
+    public void badFormatLogsRawFormatAndArguments() {
+        XLogger.e("T", "%d items", "three");
+        XLogger.w("T", "%s and %s", "one");
+        XLogger.i("T", "%q", 1);
+        XLogger.d("T", "%d", 'x');
+        assertEquals("%d items [three]", message(0));
+        assertEquals("%s and %s [one]", message(1));
+        assertEquals("%q [1]", message(2));
+        assertEquals("%d [x]", message(3));
+    }
+
+    private String message(int index) {
+        List<String> logs = sink.getLogs();
+        String line = logs.get(index);
+        return line.substring(line.indexOf(": ") + 2);
+    }
+}
@@ -0,0 +1,73 @@
+package com.xaye.loglibrary.file;
+
+import com.xaye.loglibrary.utils.LogLevel;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量刷盘的触发条件：条数、字节数、ERROR 级别和时间间隔，intervalMillis 为 0 时不按时间刷盘
+ */
+public class BatchingWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void zeroIntervalWaitsForBatchSize() throws IOException {
+        for (boolean garbageFree : new boolean[]{false, true}) {
+            File file = folder.newFile(garbageFree ? "gf.log" : "text.log");
+            BatchingWriter writer = new BatchingWriter(10, 16 * 1024, 0L, garbageFree);
+            assertTrue(writer.open(file));
+            for (int i = 0; i < 9; i++) {
+                writer.appendLog(LogLevel.INFO, "line " + i);
+                writer.flushIfDue();
+                assertEquals("after line " + i, 0, file.length());
+            }
+            writer.appendLog(LogLevel.INFO, "line 9");
+            assertEquals(10 * "line 0\n".length(), file.length());
+            writer.close();
+        }
+    }
+
+    @Test
+    public void zeroIntervalWaitsForBytesThreshold() throws IOException {
+        File file = folder.newFile("bytes.log");
+        BatchingWriter writer = new BatchingWriter(1000, 20, 0L);
+        assertTrue(writer.open(file));
+        writer.appendLog(LogLevel.INFO, "0123456789");
+        assertEquals(0, file.length());
+        writer.appendLog(LogLevel.INFO, "0123456789");
+        assertEquals(22, file.length());
+        writer.close();
+    }
+
+    @Test
+    public void errorFlushesImmediately() throws IOException {
+        File file = folder.newFile("error.log");
+        BatchingWriter writer = new BatchingWriter(1000, 16 * 1024, 0L);
+        assertTrue(writer.open(file));
+        writer.appendLog(LogLevel.INFO, "info");
+        assertEquals(0, file.length());
+        writer.appendLog(LogLevel.ERROR, "error");
+        assertEquals("info\nerror\n".length(), file.length());
+        writer.close();
+    }
+
+    @Test
+    public void flushesPendingLinesOnceIntervalElapsed() throws Exception {
+        File file = folder.newFile("interval.log");
+        BatchingWriter writer = new BatchingWriter(1000, 16 * 1024, 20L);
+        assertTrue(writer.open(file));
+        writer.appendLog(LogLevel.INFO, "a");
+        Thread.sleep(50);
+        writer.flushIfDue();
+        assertEquals(2, file.length());
+        writer.close();
+    }
+}
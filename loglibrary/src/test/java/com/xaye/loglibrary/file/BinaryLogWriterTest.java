@@ -0,0 +1,175 @@
+package com.xaye.loglibrary.file;
+
+import com.xaye.loglibrary.utils.LogLevel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * BinaryLogWriter 写出的 .xlog 经 XlogDecoder 还原后与文本格式一致：时间差、标签表、会话、多字节字符和不完整的末尾记录
+ */
+public class BinaryLogWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TimeZone defaultTimeZone;
+    private long time;
+
+    @Before
+    public void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2025, Calendar.JULY, 3, 9, 5, 7);
+        time = calendar.getTimeInMillis() + 42;
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void decodesRecordsWritten() throws IOException {
+        File file = folder.newFile("2025-07-03.xlog");
+        BinaryLogWriter writer = new BinaryLogWriter();
+        assertTrue(writer.open(file));
+        writer.appendRecord(time, LogLevel.DEBUG, "Net", "hello");
+        writer.appendRecord(time + 5, LogLevel.INFO, null, "no tag");
+        writer.appendRecord(time + 1005, LogLevel.WARN, "Net", "again");
+        writer.appendRecord(time + 1000, LogLevel.ERROR, "标签", "汉字 😀");
+        writer.appendRecord(time + 1000, LogLevel.VERBOSE, "T", null);
+        assertTrue(writer.close());
+
+        assertEquals("07-03 09:05:07.042 D/Net: hello\n"
+                        + "07-03 09:05:07.047 I: no tag\n"
+                        + "07-03 09:05:08.047 W/Net: again\n"
+                        + "07-03 09:05:08.042 E/标签: 汉字 😀\n"
+                        + "07-03 09:05:08.042 V/T: null\n",
+                decode(file, 5));
+    }
+
+    @Test
+    public void reopeningAppendsNewSession() throws IOException {
+        File file = folder.newFile("2025-07-03.xlog");
+        BinaryLogWriter writer = new BinaryLogWriter();
+        assertTrue(writer.open(file));
+        writer.appendRecord(time, LogLevel.INFO, "A", "first");
+        writer.close();
+
+        // 新会话重置标签表和时间基准，同一个 ID 对应新的标签
+        assertTrue(writer.open(file));
+        writer.appendRecord(time + 60_000, LogLevel.INFO, "B", "second");
+        writer.close();
+
+        assertEquals("07-03 09:05:07.042 I/A: first\n"
+                        + "07-03 09:06:07.042 I/B: second\n",
+                decode(file, 2));
+    }
+
+    @Test
+    public void decodesMessagesLargerThanBuffer() throws IOException {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            message.append((char) ('a' + i % 26));
+        }
+        File file = folder.newFile("2025-07-03.xlog");
+        BinaryLogWriter writer = new BinaryLogWriter(0);
+        assertTrue(writer.open(file));
+        writer.appendRecord(time, LogLevel.INFO, "T", "small");
+        writer.appendRecord(time, LogLevel.INFO, "T", message.toString());
+        writer.appendRecord(time, LogLevel.INFO, "T", "after");
+        writer.close();
+
+        assertEquals("07-03 09:05:07.042 I/T: small\n"
+                        + "07-03 09:05:07.042 I/T: " + message + "\n"
+                        + "07-03 09:05:07.042 I/T: after\n",
+                decode(file, 3));
+    }
+
+    @Test
+    public void ignoresTruncatedTrailingRecord() throws IOException {
+        File file = folder.newFile("2025-07-03.xlog");
+        BinaryLogWriter writer = new BinaryLogWriter();
+        assertTrue(writer.open(file));
+        writer.appendRecord(time, LogLevel.INFO, "T", "complete");
+        writer.appendRecord(time, LogLevel.INFO, "T", "cut off in the middle");
+        writer.close();
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        StringBuilder out = new StringBuilder();
+        long count = XlogDecoder.decode(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 5)), out);
+        assertEquals(1, count);
+        assertEquals("07-03 09:05:07.042 I/T: complete\n", out.toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsFileWithoutHeader() throws IOException {
+        XlogDecoder.decode(new ByteArrayInputStream("07-03 09:05:07.042 I: text".getBytes("UTF-8")), new StringBuilder());
+    }
+
+    @Test
+    public void rejectsOutOfRangeTagIds() throws IOException {
+        byte[][] corrupted = {
+                // 标签记录的 ID 为 0
+                {BinaryLogWriter.RECORD_TAG, 0, 1, 'T'},
+                // 标签记录的 ID 超过标签表上限
+                {BinaryLogWriter.RECORD_TAG, (byte) 0xFF, (byte) 0xFF, 0x03, 1, 'T'},
+                // 日志记录引用了未定义的标签
+                {BinaryLogWriter.RECORD_TAG, 1, 1, 'T', BinaryLogWriter.RECORD_LOG, 0, LogLevel.INFO, 5, 1, 'm'},
+                // 标签表中间有空位
+                {BinaryLogWriter.RECORD_TAG, 3, 1, 'T', BinaryLogWriter.RECORD_LOG, 0, LogLevel.INFO, 2, 1, 'm'},
+                // 负数 ID
+                {BinaryLogWriter.RECORD_LOG, 0, LogLevel.INFO,
+                        (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                        (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01, 1, 'm'},
+        };
+        for (byte[] records : corrupted) {
+            try {
+                XlogDecoder.decode(new ByteArrayInputStream(withHeader(records)), new StringBuilder());
+                fail("Accepted " + Arrays.toString(records));
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().startsWith("Corrupted xlog tag id"));
+            }
+        }
+    }
+
+    @Test
+    public void decodesRecordWithoutTag() throws IOException {
+        StringBuilder out = new StringBuilder();
+        byte[] records = {BinaryLogWriter.RECORD_LOG, 0, LogLevel.INFO, 0, 1, 'm'};
+        assertEquals(1, XlogDecoder.decode(new ByteArrayInputStream(withHeader(records)), out));
+        assertTrue(out.toString(), out.toString().endsWith(" I: m\n"));
+    }
+
+    private static byte[] withHeader(byte[] records) {
+        byte[] bytes = Arrays.copyOf(BinaryLogWriter.MAGIC, BinaryLogWriter.MAGIC.length + 1 + records.length);
+        bytes[BinaryLogWriter.MAGIC.length] = BinaryLogWriter.VERSION;
+        System.arraycopy(records, 0, bytes, BinaryLogWriter.MAGIC.length + 1, records.length);
+        return bytes;
+    }
+
+    private static String decode(File file, long expectedCount) throws IOException {
+        StringBuilder out = new StringBuilder();
+        try (InputStream in = new FileInputStream(file)) {
+            assertEquals(expectedCount, XlogDecoder.decode(in, out));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.xaye.loglibrary.file;
+
+import com.xaye.loglibrary.utils.LogLevel;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 边写边压缩：多个 gzip 成员可连续解压，intervalMillis 为 0 时不会每行单独压缩成一个成员
+ */
+public class GzipWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void zeroIntervalCompressesWholeBatch() throws IOException {
+        File file = folder.newFile("2025-07-03.log.gz");
+        GzipWriter writer = new GzipWriter(1000, 16 * 1024, 0L, Deflater.BEST_SPEED);
+        assertTrue(writer.open(file));
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            String line = "07-03 09:05:07.042 I/Net: request " + i + " done";
+            writer.appendLog(LogLevel.INFO, line);
+            writer.flushIfDue();
+            expected.append(line).append('\n');
+        }
+        assertEquals(0, file.length());
+        writer.close();
+
+        // 一个成员，压缩后比原文小得多；每行单独成员时每行至少有 18 字节的头尾
+        assertTrue(file.length() + " bytes", file.length() < expected.length() / 4);
+        assertEquals(expected.toString(), gunzip(file));
+    }
+
+    @Test
+    public void eachFlushAppendsReadableMember() throws IOException {
+        File file = folder.newFile("members.log.gz");
+        GzipWriter writer = new GzipWriter(2, 16 * 1024, 0L, Deflater.DEFAULT_COMPRESSION);
+        assertTrue(writer.open(file));
+        writer.appendLog(LogLevel.INFO, "a");
+        assertEquals(0, file.length());
+        writer.appendLog(LogLevel.INFO, "b");
+        long firstMember = file.length();
+        assertTrue(firstMember > 0);
+        writer.appendLog(LogLevel.ERROR, "汉字");
+        assertTrue(file.length() > firstMember);
+        writer.close();
+
+        assertEquals("a\nb\n汉字\n", gunzip(file));
+    }
+
+    private static String gunzip(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            byte[] buffer = new byte[4096];
+            for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,78 @@
+package com.xaye.loglibrary.format;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流式 JSON 缩进：格式、key 顺序、字符串转义以及不完整输入的回退
+ */
+public class JsonLogFormatterTest {
+    private final JsonLogFormatter formatter = new JsonLogFormatter();
+
+    @Test
+    public void indentsObjectKeepingKeyOrder() {
+        assertEquals("{\n"
+                        + "    \"z\": 1,\n"
+                        + "    \"a\": [\n"
+                        + "        true,\n"
+                        + "        null\n"
+                        + "    ],\n"
+                        + "    \"m\": {\n"
+                        + "        \"k\": \"v\"\n"
+                        + "    }\n"
+                        + "}",
+                formatter.formatMessage("{\"z\":1,\"a\":[true,null],\"m\":{\"k\":\"v\"}}"));
+    }
+
+    @Test
+    public void indentsTopLevelArray() {
+        assertEquals("[\n    1,\n    2\n]", formatter.formatMessage("  [1, 2]  "));
+    }
+
+    @Test
+    public void keepsEmptyContainersOnOneLine() {
+        assertEquals("{\n    \"a\": {},\n    \"b\": []\n}", formatter.formatMessage("{\"a\":{ },\"b\":[]}"));
+    }
+
+    @Test
+    public void keepsStringContentVerbatim() {
+        String json = "{\"s\":\"a,b:{c}[d] \\\"q\\\" \\\\\"}";
+        assertEquals("{\n    \"s\": \"a,b:{c}[d] \\\"q\\\" \\\\\"\n}", formatter.formatMessage(json));
+    }
+
+    @Test
+    public void dropsWhitespaceOutsideStrings() {
+        assertEquals("{\n    \"a\": 1\n}", formatter.formatMessage("{\n\t\"a\" :\r\n 1 }"));
+    }
+
+    @Test
+    public void returnsInputWhenMalformed() {
+        assertEquals("{\"a\":1", formatter.formatMessage("{\"a\":1"));
+        assertEquals("{\"a\":\"open}", formatter.formatMessage("{\"a\":\"open}"));
+        assertEquals("{\"a\":1]", formatter.formatMessage("{\"a\":1]"));
+        assertEquals("{} {}", formatter.formatMessage("{} {}"));
+    }
+
+    @Test
+    public void returnsInputWhenSeparatorMissing() {
+        String[] inputs = {
+                "[1 2]", "[\"x\" \"y\"]", "[{} {}]", "{\"a\" 1}", "{\"a\":1 \"b\":2}",
+                "{\"a\"::1}", "[1,,2]", "[1,]", "{\"a\":1,}", "{1:2}", "[\"a\":1]", "{\"a\"}",
+        };
+        for (String input : inputs) {
+            assertEquals(input, formatter.formatMessage(input));
+        }
+    }
+
+    @Test
+    public void returnsInputWhenNotObjectOrArray() {
+        assertEquals("plain text", formatter.formatMessage("plain text"));
+    }
+
+    @Test
+    public void returnsEmptyForBlankInput() {
+        assertEquals("", formatter.formatMessage(null));
+        assertEquals("", formatter.formatMessage("   "));
+    }
+}
@@ -0,0 +1,125 @@
+package com.xaye.loglibrary.format;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * JSON/XML 格式化的截断模式：上限按 UTF-8 字节计算，标记中的 N 为未输出部分的字节数，不会拆开代理对
+ */
+public class TruncationTest {
+
+    @Test
+    public void jsonStopsAtByteBudgetAndReportsRemainingBytes() {
+        String json = "{\"a\":\"0123456789\",\"b\":\"abcdefghij\"}";
+        String formatted = new JsonLogFormatter(20, 0).formatMessage(json);
+
+        String marker = "\n...truncated ";
+        int markerAt = formatted.indexOf(marker);
+        assertTrue(formatted, markerAt > 0);
+        String output = formatted.substring(0, markerAt);
+        assertTrue(output, utf8(output) <= 20);
+        long remaining = Long.parseLong(formatted.substring(markerAt + marker.length(), formatted.length() - " bytes".length()));
+        assertTrue(formatted.endsWith(" bytes"));
+        assertTrue(remaining > 0 && remaining < utf8(json));
+    }
+
+    @Test
+    public void jsonStopsAtLineBudget() {
+        String formatted = new JsonLogFormatter(0, 3).formatMessage("{\"a\":1,\"b\":2,\"c\":3,\"d\":4}");
+        assertTrue(formatted, formatted.startsWith("{\n    \"a\": 1,\n    \"b\": 2,"));
+        assertTrue(formatted, formatted.contains("...truncated "));
+        assertFalse(formatted, formatted.contains("\"d\""));
+    }
+
+    @Test
+    public void budgetCountsMultiByteCharactersAsBytes() {
+        // "[\n    " 占 6 字节，剩余 14 字节放下引号和 4 个汉字（每个 3 字节）
+        String formatted = new JsonLogFormatter(20, 0).formatMessage("[\"汉字汉字汉字汉字汉字汉字\"]");
+        String output = formatted.substring(0, formatted.indexOf("\n...truncated "));
+        assertEquals("[\n    \"汉字汉字", output);
+        // 未输出 8 个汉字加 "]
+        assertTrue(formatted, formatted.endsWith("...truncated 26 bytes"));
+    }
+
+    @Test
+    public void neverSplitsSurrogatePair() {
+        String emoji = "😀"; // 4 字节
+        StringBuilder json = new StringBuilder("[\"");
+        for (int i = 0; i < 10; i++) {
+            json.append(emoji);
+        }
+        json.append("\"]");
+        for (int budget = 7; budget < 20; budget++) {
+            String formatted = new JsonLogFormatter(budget, 0).formatMessage(json.toString());
+            assertNoBrokenSurrogate(formatted);
+        }
+        for (int budget = 1; budget < 12; budget++) {
+            assertNoBrokenSurrogate(TruncationMarker.truncate(json.toString(), budget, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void xmlTextStopsAtByteBudget() {
+        String xml = "<a><b>" + "汉字汉字汉字汉字" + "</b></a>";
+        String formatted = new XmlLogFormatter(XmlLogFormatter.DEFAULT_MAX_FORMAT_LENGTH, 20, 0).formatMessage(xml);
+        String output = formatted.substring(0, formatted.indexOf("\n...truncated "));
+        assertTrue(output, utf8(output) <= 20);
+        assertNoBrokenSurrogate(formatted);
+    }
+
+    @Test
+    public void rawPayloadIsTruncatedToo() {
+        String xml = "<a>" + repeat('x', 100) + "</a>";
+        String formatted = new XmlLogFormatter(10, 30, 0).formatMessage(xml);
+        assertEquals(xml.substring(0, 30) + "\n...truncated 77 bytes", formatted);
+    }
+
+    @Test
+    public void malformedInputIsTruncated() {
+        // 括号不配对，回退为原文，原文同样截断
+        String json = "{\"a\":1]" + repeat('x', 100);
+        assertEquals(json.substring(0, 20) + "\n...truncated 87 bytes", new JsonLogFormatter(20, 0).formatMessage(json));
+    }
+
+    @Test
+    public void notTruncatedWithinBudget() {
+        assertEquals("{\n    \"a\": 1\n}", new JsonLogFormatter(1024, 10).formatMessage("{\"a\":1}"));
+    }
+
+    @Test
+    public void fitUtf8StopsBeforeBudgetIsExceeded() {
+        assertEquals(3, TruncationMarker.fitUtf8("abcdef", 0, 6, 3));
+        assertEquals(1, TruncationMarker.fitUtf8("a汉b", 0, 3, 3));
+        assertEquals(2, TruncationMarker.fitUtf8("a汉b", 0, 3, 4));
+        assertEquals(1, TruncationMarker.fitUtf8("a😀", 0, 3, 4));
+        assertEquals(3, TruncationMarker.fitUtf8("a😀", 0, 3, 5));
+        assertEquals(10L, TruncationMarker.utf8Length("aé汉😀", 0, 5));
+    }
+
+    private static void assertNoBrokenSurrogate(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isHighSurrogate(c)) {
+                assertTrue(s, i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1)));
+                i++;
+            } else {
+                assertFalse(s, Character.isLowSurrogate(c));
+            }
+        }
+    }
+
+    private static int utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com.xaye.loglibrary.format;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流式 XML 缩进：嵌套、行内文本、注释/声明/CDATA、超长报文直接输出以及不完整输入的回退
+ */
+public class XmlLogFormatterTest {
+    private final XmlLogFormatter formatter = new XmlLogFormatter();
+
+    @Test
+    public void indentsNestedElements() {
+        assertEquals("<a>\n"
+                        + "    <b>\n"
+                        + "        <c>text</c>\n"
+                        + "    </b>\n"
+                        + "    <d/>\n"
+                        + "</a>",
+                formatter.formatMessage("<a><b><c>text</c></b><d/></a>"));
+    }
+
+    @Test
+    public void keepsDeclarationAndCommentsOnTheirOwnLines() {
+        assertEquals("<?xml version=\"1.0\"?>\n"
+                        + "<!-- note -->\n"
+                        + "<a>\n"
+                        + "    <!-- inner -->\n"
+                        + "    <b x=\"1 > 0\">v</b>\n"
+                        + "</a>",
+                formatter.formatMessage("<?xml version=\"1.0\"?><!-- note --><a><!-- inner --><b x=\"1 > 0\">v</b></a>"));
+    }
+
+    @Test
+    public void keepsCdataVerbatim() {
+        assertEquals("<a><![CDATA[<not a tag>]]></a>", formatter.formatMessage("<a><![CDATA[<not a tag>]]></a>"));
+    }
+
+    @Test
+    public void trimsWhitespaceAroundText() {
+        assertEquals("<a>\n    <b>x y</b>\n</a>", formatter.formatMessage("<a>\n  <b>  x y  </b>\n</a>"));
+    }
+
+    @Test
+    public void returnsInputWhenMalformed() {
+        assertEquals("<a><b></a>", formatter.formatMessage("<a><b></a>"));
+        assertEquals("<a>", formatter.formatMessage("<a>"));
+        assertEquals("<a/><b/>", formatter.formatMessage("<a/><b/>"));
+        assertEquals("text<a/>", formatter.formatMessage("text<a/>"));
+    }
+
+    @Test
+    public void logsRawPayloadAboveFormatLength() {
+        XmlLogFormatter small = new XmlLogFormatter(8);
+        assertEquals("<a><b>x</b></a>", small.formatMessage("<a><b>x</b></a>"));
+    }
+
+    @Test
+    public void returnsEmptyForBlankInput() {
+        assertEquals("", formatter.formatMessage(null));
+        assertEquals("", formatter.formatMessage(" "));
+    }
+}
@@ -0,0 +1,55 @@
+package com.xaye.loglibrary.sink;
+
+import com.xaye.loglibrary.LogRecord;
+import com.xaye.loglibrary.file.OverflowPolicy;
+import com.xaye.loglibrary.utils.LogLevel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 后台线程处理日志时抛出异常只影响那一条，之后的日志照常处理，缓冲区不会因此写满
+ */
+public class AsyncLogAppenderTest {
+
+    @Test(timeout = 10_000)
+    public void keepsHandlingAfterHandlerThrows() {
+        final List<String> handled = new ArrayList<>();
+        AsyncLogAppender appender = new AsyncLogAppender("test-appender", 16, OverflowPolicy.BLOCK, record -> {
+            if ("bad".equals(record.getMessage())) {
+                throw new IllegalStateException("write failed");
+            }
+            synchronized (handled) {
+                handled.add(record.getMessage());
+            }
+        });
+
+        append(appender, "first");
+        append(appender, "bad");
+        // 缓冲区只有 16 条，后台线程退出的话 BLOCK 会一直等下去
+        for (int i = 0; i < 1000; i++) {
+            append(appender, "after " + i);
+        }
+        appender.close();
+
+        synchronized (handled) {
+            assertEquals(1001, handled.size());
+            assertEquals("first", handled.get(0));
+            assertEquals("after 999", handled.get(1000));
+        }
+        assertEquals(0, appender.getDroppedCount());
+    }
+
+    private static void append(AsyncLogAppender appender, String message) {
+        LogRecord record = LogRecord.obtain(System.currentTimeMillis(), LogLevel.INFO, "T", message, null);
+        try {
+            appender.append(record);
+        } finally {
+            record.recycle();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.xaye.loglibrary.sink;
+
+import com.xaye.loglibrary.LogRecord;
+import com.xaye.loglibrary.file.OverflowPolicy;
+import com.xaye.loglibrary.utils.LogLevel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 被包装的目标抛出异常时后台线程继续工作；后台线程意外退出后 BLOCK 策略不会让调用线程一直等待
+ */
+public class AsyncLogSinkTest {
+
+    @Test(timeout = 10_000)
+    public void laterRecordsReachDelegateAfterOneThrows() {
+        RecordingSink delegate = new RecordingSink(false);
+        AsyncLogSink sink = new AsyncLogSink(delegate, 8, OverflowPolicy.BLOCK);
+
+        write(sink, "bad");
+        for (int i = 0; i < 500; i++) {
+            write(sink, "after " + i);
+        }
+        sink.close();
+
+        List<String> messages = delegate.messages();
+        assertEquals(500, messages.size());
+        assertEquals("after 0", messages.get(0));
+        assertEquals("after 499", messages.get(499));
+        assertEquals(0, sink.getDroppedCount());
+    }
+
+    @Test(timeout = 10_000)
+    public void blockingWriteReturnsAfterWriterThreadDies() {
+        RecordingSink delegate = new RecordingSink(true);
+        AsyncLogSink sink = new AsyncLogSink(delegate, 4, OverflowPolicy.BLOCK);
+
+        write(sink, "bad");
+        for (int i = 0; i < 100; i++) {
+            write(sink, "after " + i);
+        }
+        sink.close();
+
+        assertTrue(sink.getDroppedCount() > 0);
+    }
+
+    private static void write(LogSink sink, String message) {
+        LogRecord record = LogRecord.obtain(System.currentTimeMillis(), LogLevel.INFO, "T", message, null);
+        try {
+            sink.write(record);
+        } finally {
+            record.recycle();
+        }
+    }
+
+    private static final class RecordingSink implements LogSink {
+        private final boolean fatal;
+        private final List<String> messages = new ArrayList<>();
+
+        RecordingSink(boolean fatal) {
+            this.fatal = fatal;
+        }
+
+        @Override
+        public boolean isLoggable(int level) {
+            return true;
+        }
+
+        @Override
+        public void write(LogRecord record) {
+            if ("bad".equals(record.getMessage())) {
+                if (fatal) {
+                    throw new Error("delegate crashed");
+                }
+                throw new IllegalStateException("upload failed");
+            }
+            synchronized (messages) {
+                messages.add(record.getMessage());
+            }
+        }
+
+        List<String> messages() {
+            synchronized (messages) {
+                return new ArrayList<>(messages);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.xaye.loglibrary.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * 日期边界的缓存、跨零点、时钟回拨以及夏令时切换当天的计算
+ */
+public class DayBoundaryTest {
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void crossedBeforeFirstRefresh() {
+        assertTrue(new DayBoundary().isCrossed(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void refreshFormatsDate() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        DayBoundary boundary = new DayBoundary();
+
+        assertTrue(boundary.refresh(millis(2025, Calendar.JULY, 3, 9, 30, 0)));
+        assertEquals("2025-07-03", boundary.getDate());
+        assertFalse(boundary.refresh(millis(2025, Calendar.JULY, 3, 9, 30, 30)));
+    }
+
+    @Test
+    public void notCrossedWithinRecheckInterval() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        DayBoundary boundary = new DayBoundary();
+        long time = millis(2025, Calendar.JULY, 3, 9, 30, 0);
+        boundary.refresh(time);
+
+        assertFalse(boundary.isCrossed(time));
+        assertFalse(boundary.isCrossed(time + 59 * 1000L));
+        // 最多缓存一分钟，以便感知时区变化
+        assertTrue(boundary.isCrossed(time + 60 * 1000L));
+    }
+
+    @Test
+    public void crossedAtMidnight() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        DayBoundary boundary = new DayBoundary();
+        long midnight = millis(2025, Calendar.JULY, 4, 0, 0, 0);
+        boundary.refresh(midnight - 10 * 1000L);
+
+        assertFalse(boundary.isCrossed(midnight - 1));
+        assertTrue(boundary.isCrossed(midnight));
+        assertTrue(boundary.refresh(midnight));
+        assertEquals("2025-07-04", boundary.getDate());
+    }
+
+    @Test
+    public void crossedWhenClockGoesBack() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        DayBoundary boundary = new DayBoundary();
+        long midnight = millis(2025, Calendar.JULY, 4, 0, 0, 0);
+        boundary.refresh(midnight + 1000L);
+
+        assertFalse(boundary.isCrossed(midnight));
+        assertTrue(boundary.isCrossed(midnight - 1));
+        assertTrue(boundary.refresh(midnight - 1));
+        assertEquals("2025-07-03", boundary.getDate());
+    }
+
+    @Test
+    public void shortDayWhenDaylightSavingStarts() {
+        // 2025-03-09 纽约只有 23 小时
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        DayBoundary boundary = new DayBoundary();
+        long nextMidnight = millis(2025, Calendar.MARCH, 10, 0, 0, 0);
+        boundary.refresh(nextMidnight - 30 * 1000L);
+        assertEquals("2025-03-09", boundary.getDate());
+
+        assertFalse(boundary.isCrossed(nextMidnight - 1));
+        assertTrue(boundary.isCrossed(nextMidnight));
+        boundary.refresh(nextMidnight);
+        assertEquals("2025-03-10", boundary.getDate());
+    }
+
+    @Test
+    public void timeZoneChangeIsPickedUpOnRefresh() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        DayBoundary boundary = new DayBoundary();
+        // UTC 2025-07-03 20:00 即北京时间 2025-07-04 04:00
+        long time = millis(2025, Calendar.JULY, 3, 20, 0, 0);
+        boundary.refresh(time);
+        assertEquals("2025-07-03", boundary.getDate());
+
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        assertTrue(boundary.refresh(time + 60 * 1000L));
+        assertEquals("2025-07-04", boundary.getDate());
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute, int second) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute, second);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,84 @@
+package com.xaye.loglibrary.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * 日志行的编码格式，以及 lineLength 与实际编码长度一致
+ */
+public class LogLineBufferTest {
+    private TimeZone defaultTimeZone;
+    private long time;
+
+    @Before
+    public void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2025, Calendar.JULY, 3, 9, 5, 7);
+        time = calendar.getTimeInMillis() + 42;
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void encodesLevelTagAndMessage() {
+        assertEquals("07-03 09:05:07.042 D/Net: hello", encode(LogLevel.DEBUG, "Net", "hello"));
+    }
+
+    @Test
+    public void omitsNullTag() {
+        assertEquals("07-03 09:05:07.042 E: boom", encode(LogLevel.ERROR, null, "boom"));
+    }
+
+    @Test
+    public void writesNullMessageAsNull() {
+        assertEquals("07-03 09:05:07.042 I/T: null", encode(LogLevel.INFO, "T", null));
+        assertEquals(LogLineBuffer.lineLength(LogLevel.INFO, "T", "null"),
+                LogLineBuffer.lineLength(LogLevel.INFO, "T", null));
+
+        LogLineBuffer buffer = new LogLineBuffer();
+        buffer.encode(time, null);
+        assertEquals("07-03 09:05:07.042 null", new String(buffer.getBuffer(), 0, buffer.length()));
+    }
+
+    @Test
+    public void lineLengthMatchesEncodedLength() {
+        String[] tags = {null, "", "Tag", "标签"};
+        String[] messages = {"", "x", "多字节 message", "line1\nline2"};
+        LogLineBuffer buffer = new LogLineBuffer();
+        for (String tag : tags) {
+            for (String message : messages) {
+                buffer.encode(time, LogLevel.WARN, tag, message);
+                assertEquals(LogLineBuffer.lineLength(LogLevel.WARN, tag, message), buffer.length());
+            }
+        }
+    }
+
+    @Test
+    public void growsForLongMessages() {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            message.append(i % 10);
+        }
+        String line = encode(LogLevel.VERBOSE, "T", message.toString());
+        assertTrue(line.endsWith(message.toString()));
+        assertEquals(LogLineBuffer.lineLength(LogLevel.VERBOSE, "T", message.toString()), line.length());
+    }
+
+    private String encode(int level, String tag, String message) {
+        LogLineBuffer buffer = new LogLineBuffer();
+        buffer.encode(time, level, tag, message);
+        return new String(buffer.getBuffer(), 0, buffer.length());
+    }
+}